@@ -2,15 +2,19 @@ package com.example.demo.model;
 
 import java.util.List;
 
+import com.example.demo.service.CatalogIndexListener;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 
 @Entity
+@EntityListeners(CatalogIndexListener.class)
 public class Author {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
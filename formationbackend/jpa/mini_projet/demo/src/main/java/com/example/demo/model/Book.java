@@ -2,9 +2,13 @@ package com.example.demo.model;
 
 import java.util.List;
 
+import com.example.demo.service.AvailabilityIndexListener;
+import com.example.demo.service.CatalogIndexListener;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -15,6 +19,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 @Entity
+@EntityListeners({ CatalogIndexListener.class, AvailabilityIndexListener.class })
 public class Book {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
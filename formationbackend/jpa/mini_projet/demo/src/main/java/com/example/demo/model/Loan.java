@@ -8,12 +8,13 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = @Index(name = "idx_loans_status_due_date_id", columnList = "status, due_date, id"))
 public class Loan {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +24,9 @@ public class Member {
     private String phoneNumber;
     private LocalDate membershipDate;
     private Boolean active;
+    // Nombre d'emprunts en cours, tenu à jour par UPDATE conditionnel (voir LibraryService)
+    @Column(nullable = false)
+    private Integer activeLoanCount = 0;
     @OneToMany(mappedBy = "member", orphanRemoval = true, cascade = CascadeType.ALL)
     private List<Loan> loans;
 
@@ -73,6 +76,12 @@ public class Member {
     public void setActive(Boolean active) {
         this.active = active;
     }
+    public Integer getActiveLoanCount() {
+        return activeLoanCount;
+    }
+    public void setActiveLoanCount(Integer activeLoanCount) {
+        this.activeLoanCount = activeLoanCount;
+    }
     public List<Loan> getLoans() {
         return loans;
     }
@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.Author;
@@ -16,4 +17,8 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     @Query("select a from Author a JOIN FETCH a.books ")
     List<Author> findAuthorsWithBooks();
 
+    // Construction de l'index de recherche : (id, prénom, nom)
+    @Query("SELECT a.id, a.firstName, a.lastName FROM Author a")
+    List<Object[]> findIndexRows();
+
 }
@@ -3,7 +3,10 @@ package com.example.demo.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,12 +25,46 @@ public interface BookRepository extends JpaRepository<Book, Long> {
        "OR LOWER(a.lastName) LIKE LOWER(CONCAT('%', :keyword, '%'))")
 List<Book> searchByTitleOrAuthor(@Param("keyword") String keyword);
 
+    // Repli paginé tant que l'index de recherche n'est pas construit (ou pas à jour pour la transaction)
+    @Query(value = "SELECT b FROM Book b LEFT JOIN b.author a " +
+           "WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+           "OR LOWER(a.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) ORDER BY b.id",
+           countQuery = "SELECT COUNT(b) FROM Book b LEFT JOIN b.author a " +
+           "WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+           "OR LOWER(a.lastName) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    Page<Book> searchByTitleOrAuthor(@Param("keyword") String keyword, Pageable pageable);
+
+    // Construction de l'index de recherche : (id, titre, isbn, id auteur) par keyset
+    @Query("SELECT b.id, b.title, b.isbn, a.id FROM Book b LEFT JOIN b.author a WHERE b.id > :afterId ORDER BY b.id")
+    List<Object[]> findIndexRows(@Param("afterId") Long afterId, Pageable pageable);
+
     List<Book> findByAuthor(Author author);
 
     List<Book> findByCategoryOrderByTitle(BookCategory category);
 
     Optional<Book> findByIsbn(String isbn);
 
+    // Prend le livre s'il est encore disponible : un seul emprunteur gagne (1 ligne modifiée)
+    @Modifying
+    @Query("UPDATE Book b SET b.available = false WHERE b.id = :id AND b.available = true")
+    int checkout(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.available = true WHERE b.id = :id")
+    int release(@Param("id") Long id);
+
+    // Construction de l'index de disponibilité : (id, catégorie, disponible) par keyset
+    @Query("SELECT b.id, b.category, b.available FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<Object[]> findAvailabilityRows(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Repli tant que l'index de disponibilité n'est pas construit
+    @Query(value = "SELECT b FROM Book b WHERE b.available = true AND (:category IS NULL OR b.category = :category) ORDER BY b.id",
+           countQuery = "SELECT COUNT(b) FROM Book b WHERE b.available = true AND (:category IS NULL OR b.category = :category)")
+    Page<Book> findAvailableByCategory(@Param("category") BookCategory category, Pageable pageable);
+
+    @Query("SELECT b.category, COUNT(b) FROM Book b WHERE b.available = true AND b.category IS NOT NULL GROUP BY b.category")
+    List<Object[]> countAvailableByCategory();
+
     @Query("select b from Book b where b.available=true")
     List<Book> findAvailableBooks();
 
@@ -36,8 +73,16 @@ List<Book> searchByTitleOrAuthor(@Param("keyword") String keyword);
     @Query("SELECT new com.example.demo.service.StatisticsService$BookStatistics(b.title, COUNT(l)) " +
            "FROM Book b LEFT JOIN b.loans l " +
            "GROUP BY b.id, b.title " +
-           "ORDER BY COUNT(l) DESC")
-    List<BookStatistics> getMostBorrowedBooks();
+           "ORDER BY COUNT(l) DESC, b.id")
+    List<BookStatistics> getMostBorrowedBooks(Pageable pageable);
+
+    // Classement en mémoire : (id, titre, nombre d'emprunts)
+    @Query("SELECT b.id, b.title, COUNT(l) FROM Book b LEFT JOIN b.loans l " +
+           "GROUP BY b.id, b.title ORDER BY COUNT(l) DESC, b.id")
+    List<Object[]> findBorrowCounts(Pageable pageable);
+
+    @Query("SELECT b.id, b.title, COUNT(l) FROM Book b LEFT JOIN b.loans l WHERE b.id = :id GROUP BY b.id, b.title")
+    List<Object[]> findBorrowCount(@Param("id") Long id);
 
     @Query("SELECT new com.example.demo.service.StatisticsService$CategoryStatistics(b.category, COUNT(b)) " +
            "FROM Book b " +
@@ -3,7 +3,9 @@ package com.example.demo.repository;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -28,5 +30,30 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     @Query("SELECT l FROM Loan l WHERE l.member = :member AND l.status = com.example.demo.model.LoanStatus.ACTIVE")
     List<Loan> findActiveLoansForMember(@Param("member") Member member);
 
+    // Balayage des retards : (id, échéance) par keyset sur (échéance, id), l'ordre de l'index (status, due_date, id)
+    @Query("SELECT l.id, l.dueDate FROM Loan l WHERE l.status = com.example.demo.model.LoanStatus.ACTIVE " +
+           "AND l.dueDate < :currentDate " +
+           "AND (l.dueDate > :afterDue OR (l.dueDate = :afterDue AND l.id > :afterId)) ORDER BY l.dueDate, l.id")
+    List<Object[]> findActiveOverdueRows(@Param("currentDate") LocalDate currentDate,
+            @Param("afterDue") LocalDate afterDue, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Loan l SET l.status = com.example.demo.model.LoanStatus.OVERDUE " +
+           "WHERE l.id IN :ids AND l.status = com.example.demo.model.LoanStatus.ACTIVE")
+    int markOverdue(@Param("ids") List<Long> ids);
+
+    // Membres encore actifs ayant un emprunt non rendu échu avant "cutoff"
+    @Query("SELECT DISTINCT l.member.id FROM Loan l " +
+           "WHERE l.status IN (com.example.demo.model.LoanStatus.ACTIVE, com.example.demo.model.LoanStatus.OVERDUE) " +
+           "AND l.dueDate < :cutoff AND l.member.active = true AND l.member.id > :afterId ORDER BY l.member.id")
+    List<Long> findMemberIdsWithLoansDueBefore(@Param("cutoff") LocalDate cutoff, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // Clôture l'emprunt une seule fois : un second retour ne modifie aucune ligne
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Loan l SET l.status = com.example.demo.model.LoanStatus.RETURNED, l.returnDate = :returnDate " +
+           "WHERE l.id = :id AND (l.status IS NULL OR l.status <> com.example.demo.model.LoanStatus.RETURNED)")
+    int close(@Param("id") Long id, @Param("returnDate") LocalDate returnDate);
+
 
 }
@@ -3,8 +3,11 @@ package com.example.demo.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.Member;
@@ -15,6 +18,28 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     Optional<Member> findByEmail(String email);
 
     List<Member> findByActiveTrue();
+    // Réserve un emprunt : échoue (0 ligne) si le membre est inactif ou a atteint la limite
+    @Modifying
+    @Query("UPDATE Member m SET m.activeLoanCount = m.activeLoanCount + 1 " +
+           "WHERE m.id = :id AND m.active = true AND m.activeLoanCount < :max")
+    int reserveLoanSlot(@Param("id") Long id, @Param("max") int max);
+
+    @Modifying
+    @Query("UPDATE Member m SET m.activeLoanCount = m.activeLoanCount - 1 " +
+           "WHERE m.id = :id AND m.activeLoanCount > 0")
+    int releaseLoanSlot(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Member m SET m.active = false WHERE m.id IN :ids AND m.active = true")
+    int deactivate(@Param("ids") List<Long> ids);
+
+    // Recalcule les compteurs depuis les emprunts non rendus
+    @Modifying
+    @Query("UPDATE Member m SET m.activeLoanCount = " +
+           "(SELECT CAST(COUNT(l) AS Integer) FROM Loan l " +
+           "WHERE l.member = m AND (l.status IS NULL OR l.status <> com.example.demo.model.LoanStatus.RETURNED))")
+    int recountActiveLoans();
+
     @Query("select m from Member m JOIN FETCH m.loans where m.active = true ")
     List<Member> findMembersWithActiveLoans();
 
@@ -22,7 +47,16 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
 
     @Query("SELECT new com.example.demo.service.StatisticsService$MemberStatistics(CONCAT(m.firstName, ' ', m.lastName), COUNT(l)) " +
            "FROM Member m LEFT JOIN m.loans l " +
-           "GROUP BY m.id, m.firstName ,m.lastName" +
-           "ORDER BY COUNT(l) DESC")
-    List<MemberStatistics> getMostActiveMembers();
+           "GROUP BY m.id, m.firstName, m.lastName " +
+           "ORDER BY COUNT(l) DESC, m.id")
+    List<MemberStatistics> getMostActiveMembers(Pageable pageable);
+
+    // Classement en mémoire : (id, nom, nombre d'emprunts)
+    @Query("SELECT m.id, CONCAT(m.firstName, ' ', m.lastName), COUNT(l) FROM Member m LEFT JOIN m.loans l " +
+           "GROUP BY m.id, m.firstName, m.lastName ORDER BY COUNT(l) DESC, m.id")
+    List<Object[]> findBorrowCounts(Pageable pageable);
+
+    @Query("SELECT m.id, CONCAT(m.firstName, ' ', m.lastName), COUNT(l) FROM Member m LEFT JOIN m.loans l " +
+           "WHERE m.id = :id GROUP BY m.id, m.firstName, m.lastName")
+    List<Object[]> findBorrowCount(@Param("id") Long id);
 }
@@ -0,0 +1,268 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.model.BookCategory;
+import com.example.demo.repository.BookRepository;
+
+/**
+ * Disponibilité des livres en mémoire : un bitmap (bit = id du livre) des livres connus,
+ * un des livres disponibles et un par catégorie. "Livres disponibles de la catégorie X"
+ * se parcourt sur les deux bitmaps à la fois, sans copie ; les comptes par catégorie
+ * sont tenus à jour à chaque écriture.
+ * Construit au démarrage, puis mis à jour après commit par les emprunts, les retours
+ * et les écritures de livres (AvailabilityIndexListener). Rechargé périodiquement
+ * depuis la base (library.availability.reconcile-interval) pour corriger toute dérive.
+ * Sert les lectures uniquement : l'emprunt reste décidé par l'UPDATE conditionnel en base.
+ */
+@Service
+public class AvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    public record AvailableIds(List<Long> bookIds, long total) {
+    }
+
+    private final BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bitmaps bitmaps = new Bitmaps();
+
+    // Écritures appliquées pendant une reconstruction (null sinon), rejouées sur la nouvelle table
+    private List<Runnable> replay;
+
+    private volatile boolean ready;
+
+    public AvailabilityIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Construit les bitmaps depuis la base, par lots, sans bloquer les lectures
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${library.availability.reconcile-interval:600000}",
+            fixedDelayString = "${library.availability.reconcile-interval:600000}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            replay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Bitmaps rebuilt = new Bitmaps();
+        try {
+            Long lastId = 0L;
+            while (true) {
+                List<Object[]> rows = bookRepository.findAvailabilityRows(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (Object[] row : rows) {
+                    rebuilt.put(bit((Long) row[0]), (BookCategory) row[1], Boolean.TRUE.equals(row[2]));
+                }
+                if (rows.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.warn("Construction de l'index de disponibilité impossible : {}", ex.getMessage());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Bitmaps previous = bitmaps;
+            bitmaps = rebuilt;
+            // Les mises à jour reçues pendant la lecture sont des valeurs absolues : les rejouer est sans risque
+            replay.forEach(Runnable::run);
+            replay = null;
+            if (ready && previous.availableTotal != bitmaps.availableTotal) {
+                log.info("Index de disponibilité recalé : {} -> {} livres disponibles", previous.availableTotal,
+                        bitmaps.availableTotal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Index de disponibilité construit : {} livres, {} disponibles", rebuilt.known.cardinality(),
+                rebuilt.availableTotal);
+    }
+
+    /**
+     * Page des ids de livres disponibles d'une catégorie (toutes si null), par id croissant
+     */
+    public AvailableIds availableIds(BookCategory category, int page, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet available = bitmaps.available;
+            BitSet inCategory = category == null ? null : bitmaps.categories.get(category);
+            long total = category == null ? bitmaps.availableTotal : bitmaps.availableByCategory.get(category);
+            List<Long> ids = new ArrayList<>(size);
+            long skip = (long) page * size;
+            if (skip >= total) {
+                return new AvailableIds(ids, total);
+            }
+            for (int i = next(available, inCategory, 0); i >= 0 && ids.size() < size; i = next(available, inCategory, i + 1)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    ids.add((long) i);
+                }
+            }
+            return new AvailableIds(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre de livres disponibles par catégorie
+     */
+    public Map<BookCategory, Long> availableCounts() {
+        lock.readLock().lock();
+        try {
+            return new EnumMap<>(bitmaps.availableByCategory);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Change la disponibilité d'un livre après le commit de la transaction courante
+     */
+    public void availabilityChanged(Long bookId, boolean isAvailable) {
+        int bit = bit(bookId);
+        afterCommit(() -> bitmaps.setAvailable(bit, isAvailable));
+    }
+
+    public void bookSaved(Long bookId, BookCategory category, boolean isAvailable) {
+        int bit = bit(bookId);
+        afterCommit(() -> {
+            bitmaps.clear(bit);
+            bitmaps.put(bit, category, isAvailable);
+        });
+    }
+
+    public void bookRemoved(Long bookId) {
+        int bit = bit(bookId);
+        afterCommit(() -> bitmaps.clear(bit));
+    }
+
+    // Prochain bit présent dans available (et dans inCategory si fourni), à partir de from
+    private static int next(BitSet available, BitSet inCategory, int from) {
+        int i = available.nextSetBit(from);
+        if (inCategory == null) {
+            return i;
+        }
+        while (i >= 0) {
+            int j = inCategory.nextSetBit(i);
+            if (j < 0 || j == i) {
+                return j;
+            }
+            i = available.nextSetBit(j);
+        }
+        return -1;
+    }
+
+    private static int bit(Long bookId) {
+        return Math.toIntExact(bookId);
+    }
+
+    // Les changements s'appliquent sous le verrou d'écriture, et sont notés pendant une reconstruction
+    private void afterCommit(Runnable update) {
+        Runnable apply = () -> {
+            lock.writeLock().lock();
+            try {
+                update.run();
+                if (replay != null) {
+                    replay.add(update);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    // Bitmaps et comptes ; modifiés sous le verrou d'écriture (ou avant publication)
+    private static final class Bitmaps {
+        final BitSet known = new BitSet();
+        final BitSet available = new BitSet();
+        final Map<BookCategory, BitSet> categories = new EnumMap<>(BookCategory.class);
+        final Map<BookCategory, Long> availableByCategory = new EnumMap<>(BookCategory.class);
+        long availableTotal;
+
+        Bitmaps() {
+            for (BookCategory category : BookCategory.values()) {
+                categories.put(category, new BitSet());
+                availableByCategory.put(category, 0L);
+            }
+        }
+
+        void put(int bit, BookCategory category, boolean isAvailable) {
+            known.set(bit);
+            if (category != null) {
+                categories.get(category).set(bit);
+            }
+            setAvailable(bit, isAvailable);
+        }
+
+        void setAvailable(int bit, boolean isAvailable) {
+            if (!known.get(bit) || available.get(bit) == isAvailable) {
+                return;
+            }
+            available.set(bit, isAvailable);
+            count(bit, isAvailable ? 1 : -1);
+        }
+
+        void clear(int bit) {
+            setAvailable(bit, false);
+            known.clear(bit);
+            categories.values().forEach(bits -> bits.clear(bit));
+        }
+
+        private void count(int bit, long delta) {
+            availableTotal += delta;
+            for (Map.Entry<BookCategory, BitSet> entry : categories.entrySet()) {
+                if (entry.getValue().get(bit)) {
+                    availableByCategory.merge(entry.getKey(), delta, Long::sum);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.Book;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Répercute les écritures de livres (création, catégorie, disponibilité, suppression)
+ * dans l'index de disponibilité. Les UPDATE groupés des emprunts ne passent pas par ici :
+ * LibraryService met l'index à jour lui-même.
+ */
+@Component
+public class AvailabilityIndexListener {
+
+    private final ObjectProvider<AvailabilityIndex> availabilityIndex;
+
+    public AvailabilityIndexListener(ObjectProvider<AvailabilityIndex> availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Book book) {
+        availabilityIndex.ifAvailable(index -> index.bookSaved(book.getId(), book.getCategory(),
+                Boolean.TRUE.equals(book.getAvailable())));
+    }
+
+    @PostRemove
+    public void removed(Book book) {
+        availabilityIndex.ifAvailable(index -> index.bookRemoved(book.getId()));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.StatisticsService.BookStatistics;
+import com.example.demo.service.StatisticsService.MemberStatistics;
+
+/**
+ * Classements des livres les plus empruntés et des membres les plus actifs, tenus en mémoire.
+ * Chaque emprunt validé incrémente les deux classements ; une clé hors classement est relue
+ * seule (COUNT indexé sur ses emprunts). Les classements sont rechargés périodiquement depuis
+ * la base (library.leaderboard.reconcile-interval) pour corriger toute dérive.
+ */
+@Service
+public class BorrowLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowLeaderboard.class);
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final TopKBoard books;
+    private final TopKBoard members;
+
+    // Faux tant que le premier chargement n'a pas eu lieu : les lectures passent alors par la base
+    private volatile boolean loaded;
+
+    public BorrowLeaderboard(BookRepository bookRepository, MemberRepository memberRepository,
+            @Value("${library.leaderboard.capacity:100}") int capacity) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.books = new TopKBoard(capacity);
+        this.members = new TopKBoard(capacity);
+    }
+
+    /**
+     * Compte un nouvel emprunt, après le commit de la transaction courante s'il y en a une
+     */
+    public void recordLoan(Long bookId, Long memberId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(bookId, memberId);
+                }
+            });
+        } else {
+            apply(bookId, memberId);
+        }
+    }
+
+    /**
+     * Top N des livres, ou null si le classement ne peut pas répondre (pas chargé, N > capacité)
+     */
+    public List<BookStatistics> topBooks(int limit) {
+        if (!loaded || limit > books.capacity()) {
+            return null;
+        }
+        return books.top(limit).stream()
+                .map(entry -> new BookStatistics(entry.name(), entry.count()))
+                .toList();
+    }
+
+    /**
+     * Top N des membres, ou null si le classement ne peut pas répondre (pas chargé, N > capacité)
+     */
+    public List<MemberStatistics> topMembers(int limit) {
+        if (!loaded || limit > members.capacity()) {
+            return null;
+        }
+        return members.top(limit).stream()
+                .map(entry -> new MemberStatistics(entry.name(), entry.count()))
+                .toList();
+    }
+
+    /**
+     * Recharge les deux classements depuis la base (LIMIT = capacité)
+     */
+    @Scheduled(fixedDelayString = "${library.leaderboard.reconcile-interval:600000}")
+    public void reconcile() {
+        try {
+            books.replaceAll(toEntries(bookRepository.findBorrowCounts(PageRequest.of(0, books.capacity()))));
+            members.replaceAll(toEntries(memberRepository.findBorrowCounts(PageRequest.of(0, members.capacity()))));
+            loaded = true;
+        } catch (RuntimeException ex) {
+            log.warn("Rechargement des classements d'emprunts impossible : {}", ex.getMessage());
+        }
+    }
+
+    private void apply(Long bookId, Long memberId) {
+        if (!loaded) {
+            return;
+        }
+        if (!books.increment(bookId)) {
+            toEntries(bookRepository.findBorrowCount(bookId)).forEach(books::offer);
+        }
+        if (!members.increment(memberId)) {
+            toEntries(memberRepository.findBorrowCount(memberId)).forEach(members::offer);
+        }
+    }
+
+    // Lignes (id, nom, nombre d'emprunts)
+    private static List<TopKBoard.Entry> toEntries(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> new TopKBoard.Entry((Long) row[0], (String) row[1], ((Number) row[2]).longValue()))
+                .toList();
+    }
+}
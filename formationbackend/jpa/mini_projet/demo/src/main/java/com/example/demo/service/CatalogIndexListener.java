@@ -0,0 +1,104 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.model.Author;
+import com.example.demo.model.Book;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Répercute les écritures de livres et d'auteurs dans l'index de recherche après le commit,
+ * dans l'ordre du flush ; une transaction annulée ne touche pas l'index. Tant que ses écritures
+ * ne sont pas appliquées, la transaction qui écrit cherche en base (hasPendingWrites).
+ * L'index est résolu à la demande : ce listener est créé avec l'EntityManagerFactory,
+ * avant les repositories.
+ */
+@Component
+public class CatalogIndexListener {
+
+    private final ObjectProvider<CatalogSearchIndex> catalogSearchIndex;
+
+    public CatalogIndexListener(ObjectProvider<CatalogSearchIndex> catalogSearchIndex) {
+        this.catalogSearchIndex = catalogSearchIndex;
+    }
+
+    /**
+     * Vrai si la transaction courante a écrit des livres ou des auteurs pas encore dans l'index
+     */
+    public static boolean hasPendingWrites() {
+        return pendingUpdates() != null;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        if (entity instanceof Book book) {
+            Long id = book.getId();
+            String title = book.getTitle();
+            String isbn = book.getIsbn();
+            Long authorId = book.getAuthor() != null ? book.getAuthor().getId() : null;
+            apply(index -> index.bookSaved(id, title, isbn, authorId));
+        } else if (entity instanceof Author author) {
+            Long id = author.getId();
+            String firstName = author.getFirstName();
+            String lastName = author.getLastName();
+            apply(index -> index.authorSaved(id, firstName, lastName));
+        }
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        if (entity instanceof Book book) {
+            Long id = book.getId();
+            apply(index -> index.bookRemoved(id));
+        } else if (entity instanceof Author author) {
+            Long id = author.getId();
+            apply(index -> index.authorRemoved(id));
+        }
+    }
+
+    private void apply(Consumer<CatalogSearchIndex> update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            catalogSearchIndex.ifAvailable(update);
+            return;
+        }
+        PendingUpdates pending = pendingUpdates();
+        if (pending == null) {
+            pending = new PendingUpdates();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.updates.add(update);
+    }
+
+    // Les synchronisations sont propres à la transaction courante (suspendues avec elle)
+    private static PendingUpdates pendingUpdates() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingUpdates pending) {
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    private final class PendingUpdates implements TransactionSynchronization {
+        private final List<Consumer<CatalogSearchIndex>> updates = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            catalogSearchIndex.ifAvailable(index -> updates.forEach(update -> update.accept(index)));
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.demo.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.repository.AuthorRepository;
+import com.example.demo.repository.BookRepository;
+
+/**
+ * Index de recherche du catalogue, en mémoire : titre, ISBN, prénom et nom de l'auteur.
+ * La recherche ignore casse et accents, accepte les préfixes et les fautes de frappe
+ * (distance d'édition 1, ou 2 pour les mots de 8 lettres et plus). Chaque mot de la requête
+ * doit correspondre ; le score privilégie le mot exact au préfixe et au mot approché,
+ * et le titre à l'auteur. Un ISBN (ou son début) est reconnu tirets compris.
+ * L'index est construit au démarrage puis tenu à jour par CatalogIndexListener.
+ */
+@Service
+public class CatalogSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+    public record SearchHits(List<Long> bookIds, long total) {
+    }
+
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private record Doc(Long id, String title, String isbn, Long authorId, List<String> tokens) {
+    }
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // mot normalisé -> (livre -> champs où il apparaît)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final NavigableMap<String, Set<Long>> isbns = new TreeMap<>();
+    // Par id : une recherche vide parcourt le catalogue dans cet ordre
+    private final NavigableMap<Long, Doc> docs = new TreeMap<>();
+    private final Map<Long, List<String>> authors = new HashMap<>();
+    private final Map<Long, Set<Long>> booksByAuthor = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public CatalogSearchIndex(BookRepository bookRepository, AuthorRepository authorRepository) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Construit l'index depuis la base (auteurs puis livres, par lots)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            isbns.clear();
+            docs.clear();
+            authors.clear();
+            booksByAuthor.clear();
+            for (Object[] row : authorRepository.findIndexRows()) {
+                authors.put((Long) row[0], authorTokens((String) row[1], (String) row[2]));
+            }
+            Long lastId = 0L;
+            while (true) {
+                List<Object[]> rows = bookRepository.findIndexRows(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (Object[] row : rows) {
+                    add((Long) row[0], (String) row[1], (String) row[2], (Long) row[3]);
+                }
+                if (rows.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            ready = true;
+            log.info("Index du catalogue construit : {} livres, {} mots", docs.size(), postings.size());
+        } catch (RuntimeException ex) {
+            log.warn("Construction de l'index du catalogue impossible : {}", ex.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void bookSaved(Long id, String title, String isbn, Long authorId) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+            add(id, title, isbn, authorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void bookRemoved(Long id) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nouvel auteur ou auteur renommé : ses livres sont réindexés avec le nouveau nom
+     */
+    public void authorSaved(Long id, String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            authors.put(id, authorTokens(firstName, lastName));
+            for (Long bookId : List.copyOf(booksByAuthor.getOrDefault(id, Set.of()))) {
+                Doc doc = docs.get(bookId);
+                remove(bookId);
+                add(doc.id(), doc.title(), doc.isbn(), doc.authorId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void authorRemoved(Long id) {
+        lock.writeLock().lock();
+        try {
+            authors.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids des livres correspondants pour la page demandée, du plus pertinent au moins pertinent ;
+     * une recherche vide renvoie tout le catalogue par id, comme le LIKE '%%' du repli en base
+     */
+    public SearchHits search(String query, int page, int size) {
+        List<String> terms = tokenize(query);
+        String compact = compact(query);
+        lock.readLock().lock();
+        try {
+            if (query == null || query.isBlank()) {
+                List<Long> ids = docs.keySet().stream().skip((long) page * size).limit(size).toList();
+                return new SearchHits(ids, docs.size());
+            }
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                Map<Long, Integer> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // Tous les mots doivent correspondre
+                    Map<Long, Integer> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : termScores.entrySet()) {
+                        Integer score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            if (scores == null) {
+                scores = new HashMap<>();
+            }
+            if (compact.length() >= 3) {
+                for (Set<Long> ids : isbns.subMap(compact, true, compact + Character.MAX_VALUE, false).values()) {
+                    for (Long id : ids) {
+                        scores.merge(id, 20, Integer::sum);
+                    }
+                }
+            }
+
+            List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Comparator.<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                    .thenComparing(entry -> docs.get(entry.getKey()).title(), Comparator.nullsLast(String::compareTo))
+                    .thenComparing(Map.Entry::getKey));
+            int from = Math.min(page * size, ranked.size());
+            int to = Math.min(from + size, ranked.size());
+            return new SearchHits(ranked.subList(from, to).stream().map(Map.Entry::getKey).toList(), ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Minuscules sans accents, découpé sur tout ce qui n'est ni lettre ni chiffre
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> authorTokens(String firstName, String lastName) {
+        List<String> tokens = new ArrayList<>(tokenize(firstName));
+        tokens.addAll(tokenize(lastName));
+        return tokens;
+    }
+
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private Map<Long, Integer> scoreTerm(String term) {
+        Map<Long, Integer> scores = new HashMap<>();
+        collect(scores, postings.get(term), 6, 4);
+        for (Map.Entry<String, Map<Long, Integer>> entry
+                : postings.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+            collect(scores, entry.getValue(), 4, 3);
+        }
+        if (term.length() >= 4) {
+            int max = term.length() >= 8 ? 2 : 1;
+            // Mots approchés : même première lettre, longueur proche
+            String first = term.substring(0, 1);
+            for (Map.Entry<String, Map<Long, Integer>> entry
+                    : postings.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                String token = entry.getKey();
+                if (!token.startsWith(term) && editDistance(term, token, max) <= max) {
+                    collect(scores, entry.getValue(), 2, 1);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void collect(Map<Long, Integer> scores, Map<Long, Integer> matches, int titleScore, int authorScore) {
+        if (matches == null) {
+            return;
+        }
+        for (Map.Entry<Long, Integer> match : matches.entrySet()) {
+            int score = (match.getValue() & TITLE) != 0 ? titleScore : authorScore;
+            scores.merge(match.getKey(), score, Math::max);
+        }
+    }
+
+    private void add(Long id, String title, String isbn, Long authorId) {
+        Map<String, Integer> fields = new HashMap<>();
+        for (String token : tokenize(title)) {
+            fields.merge(token, TITLE, (a, b) -> a | b);
+        }
+        if (authorId != null) {
+            for (String token : authors.getOrDefault(authorId, List.of())) {
+                fields.merge(token, AUTHOR, (a, b) -> a | b);
+            }
+            booksByAuthor.computeIfAbsent(authorId, key -> new HashSet<>()).add(id);
+        }
+        fields.forEach((token, mask) -> postings.computeIfAbsent(token, key -> new HashMap<>()).put(id, mask));
+        String compactIsbn = compact(isbn);
+        if (!compactIsbn.isEmpty()) {
+            isbns.computeIfAbsent(compactIsbn, key -> new HashSet<>()).add(id);
+        }
+        docs.put(id, new Doc(id, title, isbn, authorId, List.copyOf(fields.keySet())));
+    }
+
+    private void remove(Long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (String token : doc.tokens()) {
+            postings.computeIfPresent(token, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        isbns.computeIfPresent(compact(doc.isbn()), (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+        if (doc.authorId() != null) {
+            booksByAuthor.computeIfPresent(doc.authorId(), (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static String compact(String value) {
+        return value == null ? "" : SEPARATORS.matcher(value.toLowerCase(Locale.ROOT)).replaceAll("");
+    }
+}
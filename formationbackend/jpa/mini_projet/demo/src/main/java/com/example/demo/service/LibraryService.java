@@ -1,13 +1,24 @@
 package com.example.demo.service;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.exception.BookNotAvailableException;
+import com.example.demo.exception.LoanLimitExceededException;
 import com.example.demo.exception.LoanNotExistExceededException;
 import com.example.demo.exception.MemberInactiveException;
 import com.example.demo.model.Book;
@@ -18,64 +29,94 @@ import com.example.demo.model.Member;
 import com.example.demo.repository.BookRepository;
 import com.example.demo.repository.LoanRepository;
 import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.AvailabilityIndex.AvailableIds;
+import com.example.demo.service.CatalogSearchIndex.SearchHits;
+import com.example.demo.service.OverdueLoanSweeper.SweepProgress;
 
 @Service
 public class LibraryService {
     private MemberRepository memberRepository;
     private BookRepository bookRepository;
     private LoanRepository loanRepository;
+    private OverdueLoanSweeper overdueLoanSweeper;
+    private BorrowLeaderboard borrowLeaderboard;
+    private CatalogSearchIndex catalogSearchIndex;
+    private AvailabilityIndex availabilityIndex;
+
+    static final int MAX_ACTIVE_LOANS = 3;
+    static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
 
     public record LoanDto(Long bookId, Long memberId, LocalDate dueDate, LocalDate returnDate,
             LoanStatus status) {
     }
 
     public LibraryService(LoanRepository loanRepository, MemberRepository memberRepository,
-            BookRepository bookRepository) {
+            BookRepository bookRepository, OverdueLoanSweeper overdueLoanSweeper,
+            BorrowLeaderboard borrowLeaderboard, CatalogSearchIndex catalogSearchIndex,
+            AvailabilityIndex availabilityIndex) {
         this.memberRepository = memberRepository;
         this.bookRepository = bookRepository;
         this.loanRepository = loanRepository;
+        this.overdueLoanSweeper = overdueLoanSweeper;
+        this.borrowLeaderboard = borrowLeaderboard;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.availabilityIndex = availabilityIndex;
     }
 
+    /**
+     * Crée un emprunt en deux UPDATE conditionnels, sans charger le membre, ses emprunts
+     * ni ceux du livre : le compteur du membre n'est incrémenté que s'il est actif et sous
+     * la limite, et le livre n'est pris que s'il est encore disponible. Deux membres qui
+     * demandent le dernier exemplaire en même temps : un seul UPDATE modifie la ligne,
+     * l'autre échoue et sa réservation est annulée avec la transaction.
+     */
     @Transactional
     public Loan createLoan(LoanDto loanDto) {
-
-        Member member = memberRepository.findById(loanDto.memberId)
-                .orElseThrow(() -> new MemberInactiveException("Membre inexistant"));
-        List<Loan> loans = loanRepository.findActiveLoansForMember(member);
-        if (member.getActive()) {
-            if (loans.size() < 3) {
-                Book book = bookRepository.findById(loanDto.bookId)
-                        .orElseThrow(() -> new BookNotAvailableException("bookId inexistant"));
-                if (book.getAvailable()) {
-                    Loan loan = new Loan(book, member, loanDto.dueDate, loanDto.returnDate, loanDto.status);
-                    book.setAvailable(false);
-                    bookRepository.save(book);
-                    member.getLoans().add(loan);
-                    book.getLoans().add(loan);
-                    return loanRepository.save(loan);
-                } else {
-                    throw new BookNotAvailableException("Livre indisponible");
-                }
-            } else {
-                throw new BookNotAvailableException(" Membre possede deja 3 emprunts actifs");
-            }
-        } else {
-            throw new MemberInactiveException("Membre inactif");
+        if (memberRepository.reserveLoanSlot(loanDto.memberId, MAX_ACTIVE_LOANS) == 0) {
+            throw loanRefused(loanDto.memberId);
         }
-
+        if (bookRepository.checkout(loanDto.bookId) == 0) {
+            throw bookRepository.existsById(loanDto.bookId)
+                    ? new BookNotAvailableException("Livre indisponible")
+                    : new BookNotAvailableException("bookId inexistant");
+        }
+        Loan loan = new Loan(bookRepository.getReferenceById(loanDto.bookId),
+                memberRepository.getReferenceById(loanDto.memberId), loanDto.dueDate, loanDto.returnDate,
+                loanDto.status != null ? loanDto.status : LoanStatus.ACTIVE);
+        Loan saved = loanRepository.save(loan);
+        availabilityIndex.availabilityChanged(loanDto.bookId, false);
+        borrowLeaderboard.recordLoan(loanDto.bookId, loanDto.memberId);
+        return saved;
     }
 
+    /**
+     * Clôture l'emprunt par un UPDATE conditionnel ; seul le premier retour libère le compteur
+     * du membre puis le livre, dans l'ordre de createLoan (membre, puis livre) pour que deux
+     * transactions ne s'attendent pas mutuellement. L'emprunt renvoyé est relu après l'UPDATE :
+     * un second retour garde la date du premier.
+     */
     @Transactional
     public Loan returnBook(Long loanId) {
         Loan loan = loanRepository.findById(loanId)
                 .orElseThrow(() -> new LoanNotExistExceededException("Pret inexistant"));
-        loan.setStatus(LoanStatus.RETURNED);
-        loan.setReturnDate(LocalDate.now());
-        Book book = loan.getBook();
-        book.setAvailable(true);
-        bookRepository.save(book);
-        return loanRepository.save(loan);
+        Long bookId = loan.getBook().getId();
+        Long memberId = loan.getMember().getId();
+        if (loanRepository.close(loanId, LocalDate.now()) == 1) {
+            memberRepository.releaseLoanSlot(memberId);
+            bookRepository.release(bookId);
+            availabilityIndex.availabilityChanged(bookId, true);
+        }
+        return loanRepository.findById(loanId)
+                .orElseThrow(() -> new LoanNotExistExceededException("Pret inexistant"));
+    }
 
+    /**
+     * Recale les compteurs d'emprunts sur les emprunts non rendus (données existantes au démarrage)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public int reconcileLoanCounters() {
+        return memberRepository.recountActiveLoans();
     }
 
     @Transactional(readOnly = true)
@@ -86,7 +127,32 @@ public class LibraryService {
 
     @Transactional(readOnly = true)
     public List<Book> searchBooks(String keyword) {
-        return bookRepository.searchByTitleOrAuthor(keyword);
+        return searchBooks(keyword, 0, DEFAULT_SEARCH_PAGE_SIZE).getContent();
+    }
+
+    /**
+     * Recherche paginée et classée par pertinence dans l'index du catalogue ;
+     * seuls les livres de la page sont chargés. Une transaction qui a écrit des livres
+     * cherche en base : l'index ne reçoit ses écritures qu'au commit.
+     * Sans mot-clé, les deux chemins renvoient tout le catalogue par id.
+     */
+    @Transactional(readOnly = true)
+    public Page<Book> searchBooks(String keyword, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size);
+        if (keyword == null) {
+            keyword = "";
+        }
+        if (!catalogSearchIndex.isReady() || CatalogIndexListener.hasPendingWrites()) {
+            return bookRepository.searchByTitleOrAuthor(keyword, pageable);
+        }
+        SearchHits hits = catalogSearchIndex.search(keyword, page, size);
+        Map<Long, Book> books = bookRepository.findAllById(hits.bookIds()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> content = hits.bookIds().stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, hits.total());
     }
 
     @Transactional(readOnly = true)
@@ -94,21 +160,58 @@ public class LibraryService {
         return bookRepository.findByCategoryOrderByTitle(category);
     }
 
-    @Transactional
-    public List<Loan> checkOverdueLoans() {
-        List<Loan> loans = loanRepository.findOverdueLoans(LocalDate.now());
-        loans.forEach(l -> {
-            l.setStatus(LoanStatus.OVERDUE);
-            if (ChronoUnit.DAYS.between(l.getDueDate(), LocalDate.now()) > 7) {
-                Member member = l.getMember();
-                member.setActive(false);
-                memberRepository.save(member);
-            }
-
-        });
-
-        loanRepository.saveAll(loans);
-        return loans;
+    /**
+     * Livres disponibles d'une catégorie (toutes si null), par id : les ids viennent de
+     * l'index de disponibilité, seuls les livres de la page sont chargés
+     */
+    @Transactional(readOnly = true)
+    public Page<Book> getAvailableBooks(BookCategory category, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size);
+        if (!availabilityIndex.isReady()) {
+            return bookRepository.findAvailableByCategory(category, pageable);
+        }
+        AvailableIds available = availabilityIndex.availableIds(category, page, size);
+        List<Book> content = bookRepository.findAllById(available.bookIds()).stream()
+                .sorted(Comparator.comparing(Book::getId))
+                .toList();
+        return new PageImpl<>(content, pageable, available.total());
+    }
+
+    /**
+     * Nombre de livres disponibles par catégorie
+     */
+    @Transactional(readOnly = true)
+    public Map<BookCategory, Long> getAvailabilityCounts() {
+        if (availabilityIndex.isReady()) {
+            return availabilityIndex.availableCounts();
+        }
+        Map<BookCategory, Long> counts = new EnumMap<>(BookCategory.class);
+        for (BookCategory category : BookCategory.values()) {
+            counts.put(category, 0L);
+        }
+        for (Object[] row : bookRepository.countAvailableByCategory()) {
+            counts.put((BookCategory) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Balayage immédiat des retards (même traitement que le job planifié)
+     */
+    public SweepProgress checkOverdueLoans() {
+        return overdueLoanSweeper.sweep();
+    }
+
+    // Chemin d'échec uniquement : relit le membre pour expliquer le refus
+    private RuntimeException loanRefused(Long memberId) {
+        Member member = memberRepository.findById(memberId).orElse(null);
+        if (member == null) {
+            return new MemberInactiveException("Membre inexistant");
+        }
+        if (!Boolean.TRUE.equals(member.getActive())) {
+            return new MemberInactiveException("Membre inactif");
+        }
+        return new LoanLimitExceededException("Le membre a atteint le maximum de " + MAX_ACTIVE_LOANS + " emprunts actifs");
     }
 
 }
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.repository.LoanRepository;
+import com.example.demo.repository.MemberRepository;
+
+/**
+ * Balayage des emprunts en retard, par lots d'une transaction chacun.
+ * 1. les emprunts ACTIVE échus passent en OVERDUE (keyset sur (échéance, id), UPDATE groupé par lot)
+ * 2. les membres ayant un emprunt non rendu échu depuis plus de 7 jours sont désactivés
+ * Chaque lot est validé séparément : un balayage interrompu garde le travail fait, et le
+ * suivant reprend là où il s'était arrêté puisque les lignes traitées ne correspondent plus.
+ */
+@Service
+public class OverdueLoanSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanSweeper.class);
+
+    static final int DEACTIVATION_DELAY_DAYS = 7;
+
+    // Début du keyset sur les échéances : plus petite date DATE de MySQL
+    static final LocalDate SWEEP_START = LocalDate.of(1000, 1, 1);
+
+    public record SweepProgress(boolean running, String phase, long loansMarked, long membersDeactivated,
+            int chunks, Long lastId, LocalDateTime startedAt, LocalDateTime finishedAt) {
+
+        static SweepProgress idle() {
+            return new SweepProgress(false, "IDLE", 0, 0, 0, 0L, null, null);
+        }
+    }
+
+    private final LoanRepository loanRepository;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile SweepProgress progress = SweepProgress.idle();
+
+    public OverdueLoanSweeper(LoanRepository loanRepository, MemberRepository memberRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${library.overdue.chunk-size:500}") int chunkSize) {
+        this.loanRepository = loanRepository;
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Avancement du balayage en cours, ou bilan du dernier
+     */
+    public SweepProgress progress() {
+        return progress;
+    }
+
+    @Scheduled(cron = "${library.overdue.cron:0 0 2 * * *}")
+    public void scheduledSweep() {
+        sweep();
+    }
+
+    /**
+     * Lance un balayage complet ; si un balayage est déjà en cours, retourne son avancement
+     */
+    public SweepProgress sweep() {
+        if (!running.compareAndSet(false, true)) {
+            return progress;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            long loansMarked = 0;
+            int chunks = 0;
+            LocalDate lastDue = SWEEP_START;
+            Long lastId = 0L;
+            progress = new SweepProgress(true, "OVERDUE", 0, 0, 0, lastId, startedAt, null);
+            while (true) {
+                List<Object[]> rows = loanRepository.findActiveOverdueRows(today, lastDue, lastId,
+                        PageRequest.of(0, chunkSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+                Integer marked = transactionTemplate.execute(status -> loanRepository.markOverdue(ids));
+                loansMarked += marked != null ? marked : 0;
+                chunks++;
+                Object[] last = rows.get(rows.size() - 1);
+                lastId = (Long) last[0];
+                lastDue = (LocalDate) last[1];
+                progress = new SweepProgress(true, "OVERDUE", loansMarked, 0, chunks, lastId, startedAt, null);
+                if (rows.size() < chunkSize) {
+                    break;
+                }
+            }
+
+            long membersDeactivated = 0;
+            LocalDate cutoff = today.minusDays(DEACTIVATION_DELAY_DAYS);
+            lastId = 0L;
+            progress = new SweepProgress(true, "DEACTIVATION", loansMarked, 0, chunks, lastId, startedAt, null);
+            while (true) {
+                Long after = lastId;
+                List<Long> memberIds = loanRepository.findMemberIdsWithLoansDueBefore(cutoff, after,
+                        PageRequest.of(0, chunkSize));
+                if (memberIds.isEmpty()) {
+                    break;
+                }
+                Integer deactivated = transactionTemplate.execute(status -> memberRepository.deactivate(memberIds));
+                membersDeactivated += deactivated != null ? deactivated : 0;
+                chunks++;
+                lastId = memberIds.get(memberIds.size() - 1);
+                progress = new SweepProgress(true, "DEACTIVATION", loansMarked, membersDeactivated, chunks, lastId,
+                        startedAt, null);
+                if (memberIds.size() < chunkSize) {
+                    break;
+                }
+            }
+
+            progress = new SweepProgress(false, "DONE", loansMarked, membersDeactivated, chunks, lastId, startedAt,
+                    LocalDateTime.now());
+            log.info("Retards : {} emprunts passés en OVERDUE, {} membres désactivés ({} lots)",
+                    loansMarked, membersDeactivated, chunks);
+            return progress;
+        } catch (RuntimeException ex) {
+            SweepProgress current = progress;
+            progress = new SweepProgress(false, "FAILED", current.loansMarked(), current.membersDeactivated(),
+                    current.chunks(), current.lastId(), startedAt, LocalDateTime.now());
+            log.error("Balayage des retards interrompu après {} lots", current.chunks(), ex);
+            throw ex;
+        } finally {
+            running.set(false);
+        }
+    }
+}
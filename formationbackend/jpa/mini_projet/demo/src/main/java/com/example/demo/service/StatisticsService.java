@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.model.BookCategory;
@@ -14,10 +15,13 @@ import com.example.demo.repository.MemberRepository;
 public class StatisticsService {
     private MemberRepository memberRepository;
     private BookRepository bookRepository;
+    private BorrowLeaderboard borrowLeaderboard;
 
-    public StatisticsService(BookRepository bookRepository, MemberRepository memberRepository) {
+    public StatisticsService(BookRepository bookRepository, MemberRepository memberRepository,
+            BorrowLeaderboard borrowLeaderboard) {
         this.memberRepository = memberRepository;
         this.bookRepository = bookRepository;
+        this.borrowLeaderboard = borrowLeaderboard;
 
     }
 
@@ -30,17 +34,16 @@ public class StatisticsService {
     public record CategoryStatistics(com.example.demo.model.BookCategory category, Long bookCount) {
     }
 
-    /// TODO: Implement getMostBorrowedBooks with proper JPQL or native query
     public List<BookStatistics> getMostBorrowedBooks(int limit) {
-        // Top N livres les plus empruntés
-        List<BookStatistics> allBooks = bookRepository.getMostBorrowedBooks();
-        return allBooks.stream().limit(limit).toList();
+        // Top N livres les plus empruntés : classement en mémoire, sinon LIMIT en base
+        List<BookStatistics> top = borrowLeaderboard.topBooks(limit);
+        return top != null ? top : bookRepository.getMostBorrowedBooks(PageRequest.of(0, limit));
     }
 
     public List<MemberStatistics> getMostActiveMembers(int limit) {
         // Top N membres avec le plus d'emprunts
-        List<MemberStatistics> allMembers = memberRepository.getMostActiveMembers();
-        return allMembers.stream().limit(limit).toList();
+        List<MemberStatistics> top = borrowLeaderboard.topMembers(limit);
+        return top != null ? top : memberRepository.getMostActiveMembers(PageRequest.of(0, limit));
     }
 
     public Map<BookCategory, Long> getCategoryStatistics() {
@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Classement borné des K meilleurs compteurs (ordre : compteur décroissant puis id croissant).
+ * Invariant : toute clé absente du classement a un compteur inférieur ou égal au dernier classé,
+ * ce qui permet de répondre à top(n) pour n <= capacité sans relire la base.
+ */
+class TopKBoard {
+
+    record Entry(Long id, String name, long count) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::count).reversed()
+            .thenComparing(Entry::id);
+
+    private final int capacity;
+    private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+    private final Map<Long, Entry> byId = new HashMap<>();
+
+    TopKBoard(int capacity) {
+        this.capacity = capacity;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Incrémente une clé déjà classée ; retourne false si elle n'est pas dans le classement
+     */
+    synchronized boolean increment(Long id) {
+        Entry current = byId.get(id);
+        if (current == null) {
+            return false;
+        }
+        ranking.remove(current);
+        Entry updated = new Entry(id, current.name(), current.count() + 1);
+        ranking.add(updated);
+        byId.put(id, updated);
+        return true;
+    }
+
+    /**
+     * Propose une clé avec son compteur exact : elle entre si le classement n'est pas plein
+     * ou si elle dépasse le dernier classé (qui est alors évincé)
+     */
+    synchronized void offer(Entry entry) {
+        Entry current = byId.remove(entry.id());
+        if (current != null) {
+            ranking.remove(current);
+        }
+        if (ranking.size() >= capacity) {
+            Entry last = ranking.last();
+            if (ORDER.compare(entry, last) >= 0) {
+                return;
+            }
+            ranking.remove(last);
+            byId.remove(last.id());
+        }
+        ranking.add(entry);
+        byId.put(entry.id(), entry);
+    }
+
+    synchronized List<Entry> top(int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, ranking.size()));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * Remplace le classement par les premiers résultats relus en base
+     */
+    synchronized void replaceAll(List<Entry> entries) {
+        ranking.clear();
+        byId.clear();
+        for (Entry entry : entries) {
+            offer(entry);
+        }
+    }
+}
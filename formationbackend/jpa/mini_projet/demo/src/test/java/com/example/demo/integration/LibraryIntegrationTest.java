@@ -26,6 +26,7 @@ import com.example.demo.repository.LoanRepository;
 import com.example.demo.repository.MemberRepository;
 import com.example.demo.service.LibraryService;
 import com.example.demo.service.LibraryService.LoanDto;
+import com.example.demo.service.OverdueLoanSweeper.SweepProgress;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -217,13 +218,11 @@ class LibraryIntegrationTest {
         loanRepository.save(overdueLoan);
 
         // When
-        List<Loan> overdueLoans = libraryService.checkOverdueLoans();
+        SweepProgress result = libraryService.checkOverdueLoans();
 
-        // Then
-        assertThat(overdueLoans).isNotEmpty();
-        assertThat(overdueLoans).allMatch(loan -> 
-            loan.getDueDate().isBefore(LocalDate.now())
-        );
+        // Then : échu depuis plus de 7 jours, le membre est désactivé
+        assertThat(result.phase()).isEqualTo("DONE");
+        assertThat(result.membersDeactivated()).isEqualTo(1);
     }
 
     @Test
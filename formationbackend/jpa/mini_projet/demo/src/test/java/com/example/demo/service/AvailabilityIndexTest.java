@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import com.example.demo.model.BookCategory;
+import com.example.demo.repository.BookRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de l'index de disponibilité")
+class AvailabilityIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.findAvailabilityRows(anyLong(), any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[] { 1L, BookCategory.FICTION, true },
+                new Object[] { 2L, BookCategory.FICTION, false },
+                new Object[] { 3L, BookCategory.SCIENCE, true },
+                new Object[] { 4L, BookCategory.FICTION, true }));
+        index = new AvailabilityIndex(bookRepository);
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Doit répondre par catégorie et paginer les ids disponibles")
+    void shouldIntersectCategoryAndAvailability() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.availableIds(BookCategory.FICTION, 0, 10).bookIds()).containsExactly(1L, 4L);
+        assertThat(index.availableIds(null, 1, 2).bookIds()).containsExactly(4L);
+        assertThat(index.availableIds(null, 1, 2).total()).isEqualTo(3);
+        assertThat(index.availableCounts())
+                .containsEntry(BookCategory.FICTION, 2L)
+                .containsEntry(BookCategory.SCIENCE, 1L)
+                .containsEntry(BookCategory.HISTORY, 0L);
+    }
+
+    @Test
+    @DisplayName("Doit suivre emprunts, retours et écritures de livres")
+    void shouldFollowLoansAndBookWrites() {
+        index.availabilityChanged(1L, false);
+        index.availabilityChanged(2L, true);
+        index.availabilityChanged(99L, true);
+        index.bookSaved(3L, BookCategory.HISTORY, true);
+        index.bookRemoved(4L);
+
+        assertThat(index.availableIds(BookCategory.FICTION, 0, 10).bookIds()).containsExactly(2L);
+        assertThat(index.availableIds(BookCategory.SCIENCE, 0, 10).total()).isZero();
+        assertThat(index.availableIds(BookCategory.HISTORY, 0, 10).bookIds()).containsExactly(3L);
+        assertThat(index.availableIds(null, 0, 10).bookIds()).containsExactly(2L, 3L);
+        assertThat(index.availableCounts())
+                .containsEntry(BookCategory.FICTION, 1L)
+                .containsEntry(BookCategory.SCIENCE, 0L)
+                .containsEntry(BookCategory.HISTORY, 1L);
+    }
+
+    @Test
+    @DisplayName("Doit se recaler sur la base au rechargement")
+    void shouldReconcileWithDatabase() {
+        when(bookRepository.findAvailabilityRows(anyLong(), any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[] { 1L, BookCategory.FICTION, false },
+                new Object[] { 3L, BookCategory.SCIENCE, true }));
+
+        index.rebuild();
+
+        assertThat(index.availableIds(null, 0, 10).bookIds()).containsExactly(3L);
+        assertThat(index.availableIds(null, 0, 10).total()).isEqualTo(1);
+        assertThat(index.availableCounts())
+                .containsEntry(BookCategory.FICTION, 0L)
+                .containsEntry(BookCategory.SCIENCE, 1L);
+    }
+}
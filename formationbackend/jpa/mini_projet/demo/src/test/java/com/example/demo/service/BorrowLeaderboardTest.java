@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.StatisticsService.BookStatistics;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests des classements d'emprunts")
+class BorrowLeaderboardTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    private BorrowLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new BorrowLeaderboard(bookRepository, memberRepository, 2);
+    }
+
+    @Test
+    @DisplayName("Doit tenir le top à jour à chaque emprunt sans relire tout le classement")
+    void shouldUpdateTopIncrementally() {
+        // Given
+        when(bookRepository.findBorrowCounts(any(Pageable.class))).thenReturn(List.<Object[]>of(
+                row(1L, "Les Misérables", 5),
+                row(2L, "Germinal", 4)));
+        when(memberRepository.findBorrowCounts(any(Pageable.class))).thenReturn(List.<Object[]>of(
+                row(10L, "Jean Dupont", 3)));
+        leaderboard.reconcile();
+
+        // When : Germinal rattrape puis dépasse Les Misérables
+        leaderboard.recordLoan(2L, 10L);
+        leaderboard.recordLoan(2L, 10L);
+
+        // Then
+        assertThat(leaderboard.topBooks(2)).containsExactly(
+                new BookStatistics("Germinal", 6L),
+                new BookStatistics("Les Misérables", 5L));
+        assertThat(leaderboard.topMembers(1).get(0).borrowCount()).isEqualTo(5L);
+        verify(bookRepository, never()).findBorrowCount(any());
+    }
+
+    @Test
+    @DisplayName("Un livre hors classement doit y entrer quand il dépasse le dernier")
+    void shouldPromoteBookFromOutsideTheBoard() {
+        // Given
+        when(bookRepository.findBorrowCounts(any(Pageable.class))).thenReturn(List.<Object[]>of(
+                row(1L, "Les Misérables", 5),
+                row(2L, "Germinal", 4)));
+        when(memberRepository.findBorrowCounts(any(Pageable.class))).thenReturn(List.<Object[]>of());
+        when(bookRepository.findBorrowCount(3L)).thenReturn(List.<Object[]>of(row(3L, "La Peste", 5)));
+        when(memberRepository.findBorrowCount(10L)).thenReturn(List.<Object[]>of(row(10L, "Jean Dupont", 1)));
+        leaderboard.reconcile();
+
+        // When
+        leaderboard.recordLoan(3L, 10L);
+
+        // Then
+        assertThat(leaderboard.topBooks(2)).extracting(BookStatistics::bookTitle)
+                .containsExactly("Les Misérables", "La Peste");
+    }
+
+    @Test
+    @DisplayName("Doit laisser la base répondre avant le chargement ou au-delà de la capacité")
+    void shouldFallBackWhenBoardCannotAnswer() {
+        assertThat(leaderboard.topBooks(1)).isNull();
+
+        when(bookRepository.findBorrowCounts(any(Pageable.class))).thenReturn(List.<Object[]>of());
+        when(memberRepository.findBorrowCounts(any(Pageable.class))).thenReturn(List.<Object[]>of());
+        leaderboard.reconcile();
+
+        assertThat(leaderboard.topBooks(2)).isEmpty();
+        assertThat(leaderboard.topBooks(3)).isNull();
+    }
+
+    private static Object[] row(Long id, String name, long count) {
+        return new Object[] { id, name, count };
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import com.example.demo.repository.AuthorRepository;
+import com.example.demo.repository.BookRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de l'index de recherche du catalogue")
+class CatalogSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AuthorRepository authorRepository;
+
+    private CatalogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(authorRepository.findIndexRows()).thenReturn(List.<Object[]>of(
+                new Object[] { 1L, "Victor", "Hugo" },
+                new Object[] { 2L, "Émile", "Zola" }));
+        when(bookRepository.findIndexRows(anyLong(), any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[] { 10L, "Les Misérables", "978-2-07-036114-6", 1L },
+                new Object[] { 11L, "Notre-Dame de Paris", "978-2-07-036115-3", 1L },
+                new Object[] { 12L, "Germinal", "978-2-253-00420-3", 2L },
+                new Object[] { 13L, "Hugo et les misérables", "978-0-00-000000-1", null }));
+        index = new CatalogSearchIndex(bookRepository, authorRepository);
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Doit ignorer casse et accents et classer le titre avant l'auteur")
+    void shouldMatchAccentInsensitiveAndRankTitleFirst() {
+        assertThat(index.search("MISERABLES", 0, 10).bookIds()).containsExactly(13L, 10L);
+        assertThat(index.search("hugo", 0, 10).bookIds()).containsExactly(13L, 10L, 11L);
+        assertThat(index.search("emile", 0, 10).bookIds()).containsExactly(12L);
+    }
+
+    @Test
+    @DisplayName("Doit accepter préfixes, fautes de frappe et ISBN")
+    void shouldMatchPrefixFuzzyAndIsbn() {
+        assertThat(index.search("germ", 0, 10).bookIds()).containsExactly(12L);
+        assertThat(index.search("germnal", 0, 10).bookIds()).containsExactly(12L);
+        assertThat(index.search("notre paris", 0, 10).bookIds()).containsExactly(11L);
+        assertThat(index.search("9782070361", 0, 10).bookIds()).containsExactly(10L, 11L);
+    }
+
+    @Test
+    @DisplayName("Doit paginer et suivre les écritures de livres et d'auteurs")
+    void shouldPaginateAndFollowWrites() {
+        CatalogSearchIndex.SearchHits page = index.search("hugo", 1, 2);
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.bookIds()).containsExactly(11L);
+
+        index.bookSaved(12L, "Au Bonheur des Dames", "978-2-253-00420-3", 2L);
+        index.authorSaved(1L, "Victor", "Hugues");
+        index.bookRemoved(13L);
+
+        assertThat(index.search("germinal", 0, 10).bookIds()).isEmpty();
+        assertThat(index.search("bonheur", 0, 10).bookIds()).containsExactly(12L);
+        assertThat(index.search("hugues", 0, 10).bookIds()).containsExactly(10L, 11L);
+        assertThat(index.search("hugo", 0, 10).total()).isZero();
+    }
+
+    @Test
+    @DisplayName("Doit renvoyer tout le catalogue par id pour une recherche vide")
+    void shouldReturnWholeCatalogForBlankQuery() {
+        CatalogSearchIndex.SearchHits page = index.search("  ", 1, 3);
+        assertThat(page.total()).isEqualTo(4);
+        assertThat(page.bookIds()).containsExactly(13L);
+        assertThat(index.search(null, 0, 2).bookIds()).containsExactly(10L, 11L);
+        assertThat(index.search("--", 0, 10).total()).isZero();
+    }
+}
@@ -3,6 +3,8 @@ package com.example.demo.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,10 +18,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.example.demo.exception.BookNotAvailableException;
+import com.example.demo.exception.LoanLimitExceededException;
+import com.example.demo.exception.MemberInactiveException;
 import com.example.demo.model.Author;
 import com.example.demo.model.Book;
 import com.example.demo.model.BookCategory;
@@ -29,7 +35,9 @@ import com.example.demo.model.Member;
 import com.example.demo.repository.BookRepository;
 import com.example.demo.repository.LoanRepository;
 import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.CatalogSearchIndex.SearchHits;
 import com.example.demo.service.LibraryService.LoanDto;
+import com.example.demo.service.OverdueLoanSweeper.SweepProgress;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Tests du LibraryService")
@@ -44,6 +52,18 @@ class LibraryServiceTest {
     @Mock
     private LoanRepository loanRepository;
 
+    @Mock
+    private OverdueLoanSweeper overdueLoanSweeper;
+
+    @Mock
+    private BorrowLeaderboard borrowLeaderboard;
+
+    @Mock
+    private CatalogSearchIndex catalogSearchIndex;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
     @InjectMocks
     private LibraryService libraryService;
 
@@ -104,8 +124,8 @@ class LibraryServiceTest {
         // Given
         LoanDto loanDto = new LoanDto(1L, 1L, LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE);
         
-        when(memberRepository.findById(1L)).thenReturn(Optional.of(activeMember));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(availableBook));
+        when(memberRepository.reserveLoanSlot(1L, 3)).thenReturn(1);
+        when(bookRepository.checkout(1L)).thenReturn(1);
         
         Loan expectedLoan = new Loan(availableBook, activeMember, loanDto.dueDate(), null, LoanStatus.ACTIVE);
         expectedLoan.setId(1L);
@@ -120,6 +140,8 @@ class LibraryServiceTest {
         assertThat(result.getMember()).isEqualTo(activeMember);
         assertThat(result.getStatus()).isEqualTo(LoanStatus.ACTIVE);
         verify(loanRepository, times(1)).save(any(Loan.class));
+        verify(memberRepository, never()).findById(any());
+        verify(loanRepository, never()).findActiveLoansForMember(any());
     }
 
     @Test
@@ -127,11 +149,13 @@ class LibraryServiceTest {
     void testCreateLoan_InactiveMember() {
         // Given
         LoanDto loanDto = new LoanDto(1L, 2L, LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE);
+        when(memberRepository.reserveLoanSlot(2L, 3)).thenReturn(0);
         when(memberRepository.findById(2L)).thenReturn(Optional.of(inactiveMember));
 
         // When & Then
         assertThatThrownBy(() -> libraryService.createLoan(loanDto))
-                .isInstanceOf(IllegalArgumentException.class);
+                .isInstanceOf(MemberInactiveException.class);
+        verify(bookRepository, never()).checkout(any());
     }
 
     @Test
@@ -139,12 +163,15 @@ class LibraryServiceTest {
     void testCreateLoan_BookNotAvailable() {
         // Given
         LoanDto loanDto = new LoanDto(2L, 1L, LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE);
-        when(memberRepository.findById(1L)).thenReturn(Optional.of(activeMember));
-        when(bookRepository.findById(2L)).thenReturn(Optional.of(unavailableBook));
+        when(memberRepository.reserveLoanSlot(1L, 3)).thenReturn(1);
+        when(bookRepository.checkout(2L)).thenReturn(0);
+        when(bookRepository.existsById(2L)).thenReturn(true);
 
         // When & Then
         assertThatThrownBy(() -> libraryService.createLoan(loanDto))
-                .isInstanceOf(IllegalArgumentException.class);
+                .isInstanceOf(BookNotAvailableException.class)
+                .hasMessage("Livre indisponible");
+        verify(loanRepository, never()).save(any(Loan.class));
     }
 
     @Test
@@ -161,11 +188,12 @@ class LibraryServiceTest {
         activeMember.setLoans(loans);
 
         LoanDto loanDto = new LoanDto(1L, 1L, LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE);
+        when(memberRepository.reserveLoanSlot(1L, 3)).thenReturn(0);
         when(memberRepository.findById(1L)).thenReturn(Optional.of(activeMember));
 
         // When & Then
         assertThatThrownBy(() -> libraryService.createLoan(loanDto))
-                .isInstanceOf(IllegalArgumentException.class);
+                .isInstanceOf(LoanLimitExceededException.class);
     }
 
     @Test
@@ -175,9 +203,12 @@ class LibraryServiceTest {
         Loan activeLoan = new Loan(availableBook, activeMember, 
                 LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE);
         activeLoan.setId(1L);
+        Loan returnedLoan = new Loan(availableBook, activeMember,
+                LocalDate.now().plusDays(14), LocalDate.now(), LoanStatus.RETURNED);
+        returnedLoan.setId(1L);
 
-        when(loanRepository.findById(1L)).thenReturn(Optional.of(activeLoan));
-        when(loanRepository.save(any(Loan.class))).thenReturn(activeLoan);
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(activeLoan), Optional.of(returnedLoan));
+        when(loanRepository.close(1L, LocalDate.now())).thenReturn(1);
 
         // When
         Loan result = libraryService.returnBook(1L);
@@ -186,7 +217,8 @@ class LibraryServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getStatus()).isEqualTo(LoanStatus.RETURNED);
         assertThat(result.getReturnDate()).isEqualTo(LocalDate.now());
-        verify(loanRepository, times(1)).save(activeLoan);
+        verify(loanRepository, times(1)).close(1L, LocalDate.now());
+        verify(loanRepository, never()).save(any(Loan.class));
     }
 
     @Test
@@ -214,7 +246,9 @@ class LibraryServiceTest {
     void testSearchBooks() {
         // Given
         List<Book> books = List.of(availableBook, unavailableBook);
-        when(bookRepository.searchByTitleOrAuthor("notre")).thenReturn(List.of(unavailableBook));
+        when(catalogSearchIndex.isReady()).thenReturn(true);
+        when(catalogSearchIndex.search("notre", 0, 20)).thenReturn(new SearchHits(List.of(2L), 1));
+        when(bookRepository.findAllById(List.of(2L))).thenReturn(List.of(unavailableBook));
 
         // When
         List<Book> result = libraryService.searchBooks("notre");
@@ -240,21 +274,18 @@ class LibraryServiceTest {
     }
 
     @Test
-    @DisplayName("Doit vérifier et retourner les emprunts en retard")
+    @DisplayName("Doit déléguer la vérification des retards au balayage par lots")
     void testCheckOverdueLoans() {
         // Given
-        Loan overdueLoan = new Loan(availableBook, activeMember, 
-                LocalDate.now().minusDays(20), null, LoanStatus.OVERDUE);
-        List<Loan> overdueLoans = List.of(overdueLoan);
-        
-        when(loanRepository.findOverdueLoans(any(LocalDate.class))).thenReturn(overdueLoans);
+        SweepProgress done = new SweepProgress(false, "DONE", 1, 0, 1, 0L, null, null);
+        when(overdueLoanSweeper.sweep()).thenReturn(done);
 
         // When
-        List<Loan> result = libraryService.checkOverdueLoans();
+        SweepProgress result = libraryService.checkOverdueLoans();
 
         // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getStatus()).isEqualTo(LoanStatus.OVERDUE);
+        assertThat(result.loansMarked()).isEqualTo(1);
+        verify(loanRepository, never()).findOverdueLoans(any(LocalDate.class));
     }
 
     @Test
@@ -272,9 +303,11 @@ class LibraryServiceTest {
             threeActiveLoans.add(loan);
         }
         
+        memberWithThreeLoans.setLoans(threeActiveLoans);
+        memberWithThreeLoans.setActiveLoanCount(3);
+
+        when(memberRepository.reserveLoanSlot(1L, 3)).thenReturn(0);
         when(memberRepository.findById(1L)).thenReturn(Optional.of(memberWithThreeLoans));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(availableBook));
-        when(loanRepository.findActiveLoansForMember(memberWithThreeLoans)).thenReturn(threeActiveLoans);
 
         // When & Then
         LoanDto loanDto = new LoanDto(1L, 1L, null, null, null);
@@ -283,19 +316,6 @@ class LibraryServiceTest {
             .hasMessageContaining("maximum");
     }
 
-    @Test
-    @DisplayName("Devrait retourner une liste vide quand aucun emprunt en retard")
-    void shouldReturnEmptyListWhenNoOverdueLoans() {
-        // Given
-        when(loanRepository.findOverdueLoans(any(LocalDate.class))).thenReturn(new ArrayList<>());
-
-        // When
-        List<Loan> result = libraryService.checkOverdueLoans();
-
-        // Then
-        assertThat(result).isEmpty();
-    }
-
     @Test
     @DisplayName("Devrait gérer les livres de différentes catégories")
     void shouldHandleBooksWithDifferentCategories() {
@@ -327,9 +347,8 @@ class LibraryServiceTest {
     @DisplayName("Devrait calculer correctement la date d'échéance (14 jours)")
     void shouldCalculateDueDateCorrectly() {
         // Given
-        when(memberRepository.findById(1L)).thenReturn(Optional.of(activeMember));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(availableBook));
-        when(loanRepository.findActiveLoansForMember(activeMember)).thenReturn(new ArrayList<>());
+        when(memberRepository.reserveLoanSlot(1L, 3)).thenReturn(1);
+        when(bookRepository.checkout(1L)).thenReturn(1);
         
         Loan savedLoan = new Loan(availableBook, activeMember, 
                 LocalDate.now(), LocalDate.now().plusDays(14), LoanStatus.ACTIVE);
@@ -351,9 +370,12 @@ class LibraryServiceTest {
         Loan activeLoan = new Loan(availableBook, activeMember, 
                 LocalDate.now().minusDays(5), LocalDate.now().plusDays(9), LoanStatus.ACTIVE);
         activeLoan.setId(1L);
+        Loan returnedLoan = new Loan(availableBook, activeMember,
+                LocalDate.now().minusDays(5), LocalDate.now(), LoanStatus.RETURNED);
+        returnedLoan.setId(1L);
         
-        when(loanRepository.findById(1L)).thenReturn(Optional.of(activeLoan));
-        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(activeLoan), Optional.of(returnedLoan));
+        when(loanRepository.close(1L, LocalDate.now())).thenReturn(1);
 
         // When
         Loan result = libraryService.returnBook(1L);
@@ -375,15 +397,41 @@ class LibraryServiceTest {
             .isInstanceOf(RuntimeException.class);
     }
 
+    @Test
+    @DisplayName("Un second retour ne doit libérer ni le livre ni le compteur du membre")
+    void shouldReleaseBookAndCounterOnlyOnce() {
+        // Given
+        Loan loan = new Loan(availableBook, activeMember, LocalDate.now().plusDays(14), null, LoanStatus.ACTIVE);
+        loan.setId(1L);
+        LocalDate firstReturn = LocalDate.now().minusDays(1);
+        Loan returnedLoan = new Loan(availableBook, activeMember, LocalDate.now().plusDays(14), firstReturn,
+                LoanStatus.RETURNED);
+        returnedLoan.setId(1L);
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(loan), Optional.of(returnedLoan));
+        when(loanRepository.close(any(), any(LocalDate.class))).thenReturn(1, 0);
+
+        // When
+        libraryService.returnBook(1L);
+        Loan second = libraryService.returnBook(1L);
+
+        // Then : le membre est libéré avant le livre, comme à l'emprunt
+        InOrder order = inOrder(memberRepository, bookRepository);
+        order.verify(memberRepository).releaseLoanSlot(1L);
+        order.verify(bookRepository).release(1L);
+        verify(bookRepository, times(1)).release(1L);
+        verify(memberRepository, times(1)).releaseLoanSlot(1L);
+        assertThat(second.getReturnDate()).isEqualTo(firstReturn);
+        verify(loanRepository, never()).save(any(Loan.class));
+    }
+
     @Test
     @DisplayName("Devrait permettre à un membre de créer plusieurs emprunts successifs")
     void shouldAllowMemberToCreateMultipleLoansOverTime() {
         // Given
-        when(memberRepository.findById(1L)).thenReturn(Optional.of(activeMember));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(availableBook));
+        when(memberRepository.reserveLoanSlot(1L, 3)).thenReturn(1);
+        when(bookRepository.checkout(1L)).thenReturn(1);
         
         // Premier emprunt
-        when(loanRepository.findActiveLoansForMember(activeMember)).thenReturn(new ArrayList<>());
         Loan loan1 = new Loan(availableBook, activeMember, 
                 LocalDate.now(), LocalDate.now().plusDays(14), LoanStatus.ACTIVE);
         when(loanRepository.save(any(Loan.class))).thenReturn(loan1);
@@ -392,8 +440,6 @@ class LibraryServiceTest {
         Loan firstLoan = libraryService.createLoan(loanDto1);
         
         // Deuxième emprunt
-        List<Loan> oneActiveLoan = List.of(firstLoan);
-        when(loanRepository.findActiveLoansForMember(activeMember)).thenReturn(oneActiveLoan);
         Loan loan2 = new Loan(availableBook, activeMember, 
                 LocalDate.now(), LocalDate.now().plusDays(14), LoanStatus.ACTIVE);
         when(loanRepository.save(any(Loan.class))).thenReturn(loan2);
@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo.repository.LoanRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.OverdueLoanSweeper.SweepProgress;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du balayage des retards")
+class OverdueLoanSweeperTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OverdueLoanSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new OverdueLoanSweeper(loanRepository, memberRepository, transactionManager, 2);
+    }
+
+    @Test
+    @DisplayName("Doit parcourir les emprunts par keyset et valider un lot à la fois")
+    void shouldSweepByKeysetInChunks() {
+        // Given : 3 emprunts ACTIVE échus, lots de 2, dans l'ordre (échéance, id)
+        LocalDate due = LocalDate.now().minusDays(3);
+        when(loanRepository.findActiveOverdueRows(any(LocalDate.class), eq(OverdueLoanSweeper.SWEEP_START), eq(0L),
+                any(Pageable.class))).thenReturn(List.<Object[]>of(
+                        new Object[] { 7L, due.minusDays(1) },
+                        new Object[] { 4L, due }));
+        when(loanRepository.findActiveOverdueRows(any(LocalDate.class), eq(due), eq(4L), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[] { 9L, due }));
+        when(loanRepository.markOverdue(List.of(7L, 4L))).thenReturn(2);
+        when(loanRepository.markOverdue(List.of(9L))).thenReturn(1);
+        when(loanRepository.findMemberIdsWithLoansDueBefore(eq(LocalDate.now().minusDays(7)), eq(0L),
+                any(Pageable.class))).thenReturn(List.of(3L));
+        when(memberRepository.deactivate(List.of(3L))).thenReturn(1);
+
+        // When
+        SweepProgress result = sweeper.sweep();
+
+        // Then
+        assertThat(result.phase()).isEqualTo("DONE");
+        assertThat(result.running()).isFalse();
+        assertThat(result.loansMarked()).isEqualTo(3);
+        assertThat(result.membersDeactivated()).isEqualTo(1);
+        assertThat(result.chunks()).isEqualTo(3);
+        assertThat(sweeper.progress()).isEqualTo(result);
+    }
+
+    @Test
+    @DisplayName("Ne doit rien modifier quand aucun emprunt n'est en retard")
+    void shouldDoNothingWhenNoOverdueLoans() {
+        // Given
+        when(loanRepository.findActiveOverdueRows(any(LocalDate.class), eq(OverdueLoanSweeper.SWEEP_START), eq(0L),
+                any(Pageable.class))).thenReturn(List.of());
+        when(loanRepository.findMemberIdsWithLoansDueBefore(any(LocalDate.class), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // When
+        SweepProgress result = sweeper.sweep();
+
+        // Then
+        assertThat(result.loansMarked()).isZero();
+        assertThat(result.chunks()).isZero();
+        verify(loanRepository, never()).markOverdue(any());
+        verify(memberRepository, never()).deactivate(any());
+    }
+}
@@ -1,5 +1,6 @@
 package com.exercice1.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,10 +8,13 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.exercice1.security.security.BoundedPasswordEncoder;
+import com.exercice1.security.security.PasswordEncoders;
+
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -18,10 +22,43 @@ import lombok.RequiredArgsConstructor;
 public class ApplicationConfig {
     
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+
+    @Value("${password.hashing.algorithm:bcrypt}")
+    private String hashingAlgorithm;
+
+    @Value("${password.hashing.bcrypt.strength:12}")
+    private int bcryptStrength;
+
+    @Value("${password.hashing.argon2.memory-kb:19456}")
+    private int argon2MemoryKb;
+
+    @Value("${password.hashing.argon2.iterations:2}")
+    private int argon2Iterations;
+
+    @Value("${password.hashing.argon2.parallelism:1}")
+    private int argon2Parallelism;
+
+    @Value("${password.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${password.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${password.hashing.wait-timeout-ms:5000}")
+    private long hashingWaitTimeoutMillis;
     
-    @Bean
+    /**
+     * Hachage délégant (algorithme et coût configurables) exécuté sur un pool borné
+     * (0 thread = moitié des processeurs, au moins 1)
+     */
+    @Bean(destroyMethod = "shutdown")
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+        int threads = hashingThreads > 0 ? hashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        PasswordEncoder encoder = PasswordEncoders.delegating(hashingAlgorithm, bcryptStrength,
+                argon2MemoryKb, argon2Iterations, argon2Parallelism);
+        return new BoundedPasswordEncoder(encoder, threads, hashingQueueCapacity, hashingWaitTimeoutMillis);
     }
     
     @Bean
@@ -35,6 +72,8 @@ public class ApplicationConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder());
+        // Ré-hache au login les mots de passe dont le hash n'a pas l'algorithme ou le coût cible
+        provider.setUserDetailsPasswordService(userDetailsPasswordService);
         return provider;
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.exercice1.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches planifiées (réconciliations périodiques des structures en mémoire)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -42,10 +42,12 @@ public class CustomerController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "firstName") String sortBy,
-            @RequestParam(defaultValue = "DESC") String direction
+            @RequestParam(defaultValue = "DESC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount
 
     ) {
-        return customerService.getAllCustomers(page, size, sortBy, direction);
+        return customerService.getAllCustomers(page, size, sortBy, direction, cursor, withCount);
     }
 
     @PutMapping("/{id}")
@@ -64,7 +66,9 @@ public class CustomerController {
     @GetMapping("/{id}/ordres")
     public PagedResponse<OrderResponse> getCustomerOrder(@PathVariable Long id,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        return customerService.getCustomerOrders(id, page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
+        return customerService.getCustomerOrders(id, page, size, cursor, withCount);
     }
 }
@@ -1,5 +1,9 @@
 package com.exercice1.demo.controller;
 
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,6 +15,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.exercice1.demo.dto.BulkOrderResponse;
+import com.exercice1.demo.dto.DailyOrderStatistics;
 import com.exercice1.demo.dto.OrderRequest;
 import com.exercice1.demo.dto.OrderResponse;
 import com.exercice1.demo.dto.OrderStatisticsResponse;
@@ -32,6 +38,12 @@ public class OrderController {
         return orderService.createOrder(request);
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('MODERATOR', 'ADMIN')")
+    public BulkOrderResponse createOrders(@RequestBody List<OrderRequest> requests) {
+        return orderService.createOrders(requests);
+    }
+
     @GetMapping("/{id}")
      @PreAuthorize("hasAnyRole('MODERATOR', 'ADMIN') or @securityUtils.isOrderOwner(#id, authentication)")
     public OrderResponse getOrder(@PathVariable Long id) {
@@ -43,9 +55,11 @@ public class OrderController {
     public PagedResponse<OrderResponse> getAllorder(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "firstName") String sortBy,
-            @RequestParam(defaultValue = "DESC") String direction) {
-        return orderService.getAllOrders(page, size, sortBy, direction);
+            @RequestParam(defaultValue = "orderDate") String sortBy,
+            @RequestParam(defaultValue = "DESC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
+        return orderService.getAllOrders(page, size, sortBy, direction, cursor, withCount);
     }
 
     @PatchMapping("/{id}/status")
@@ -64,8 +78,10 @@ public class OrderController {
     @GetMapping("/status/{status}")
     public PagedResponse<OrderResponse> getOrdersByStatus(@PathVariable String status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        return orderService.getOrdersByStatus(OrderStatus.valueOf(status), page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
+        return orderService.getOrdersByStatus(OrderStatus.valueOf(status), page, size, cursor, withCount);
     }
 
     @GetMapping("/statistics")
@@ -73,6 +89,15 @@ public class OrderController {
         return orderService.getOrderStatistics();
     }
 
+    @GetMapping("/statistics/daily")
+    public List<DailyOrderStatistics> getDailyOrderStatistics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return orderService.getDailyStatistics(start, end);
+    }
+
 }
 
 /*
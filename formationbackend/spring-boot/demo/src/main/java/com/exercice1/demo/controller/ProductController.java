@@ -52,8 +52,11 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction) {
-        return ResponseEntity.ok(productService.searchProducts(keyword, page, size, sortBy, direction));
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
+        return ResponseEntity.ok(productService.searchProducts(keyword, page, size, sortBy, direction,
+                cursor, withCount));
     }
 
     @Operation(
@@ -71,8 +74,11 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction) {
-        return ResponseEntity.ok(productService.getProductsByCategory(category, page, size, sortBy, direction));
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
+        return ResponseEntity.ok(productService.getProductsByCategory(category, page, size, sortBy, direction,
+                cursor, withCount));
     }
 
     @Operation(
@@ -91,8 +97,11 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction) {
-        return ResponseEntity.ok(productService.getProductsByPriceRange(min, max, page, size, sortBy, direction));
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
+        return ResponseEntity.ok(productService.getProductsByPriceRange(min, max, page, size, sortBy, direction,
+                cursor, withCount));
     }
 
     @Operation(
@@ -110,8 +119,11 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction) {
-        return ResponseEntity.ok(productService.getLowStockProducts(threshold, page, size, sortBy, direction));
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
+        return ResponseEntity.ok(productService.getLowStockProducts(threshold, page, size, sortBy, direction,
+                cursor, withCount));
     }
 
     @Operation(
@@ -134,9 +146,11 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction) {
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
         return ResponseEntity.ok(productService.filterProducts(category, minPrice, maxPrice, minStock, maxStock,
-                keyword, page, size, sortBy, direction));
+                keyword, page, size, sortBy, direction, cursor, withCount));
     }
 
     @Operation(
@@ -184,8 +198,10 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction) {
-        return ResponseEntity.ok(productService.getAllProducts(page, size, sortBy, direction));
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
+        return ResponseEntity.ok(productService.getAllProducts(page, size, sortBy, direction, cursor, withCount));
 
     }
 
@@ -0,0 +1,14 @@
+package com.exercice1.demo.dto;
+
+import java.util.List;
+
+public record BulkOrderResponse(
+    int created,
+    int failed,
+    List<BulkOrderResult> results
+) {
+    public static BulkOrderResponse of(List<BulkOrderResult> results) {
+        int created = (int) results.stream().filter(result -> result.error() == null).count();
+        return new BulkOrderResponse(created, results.size() - created, results);
+    }
+}
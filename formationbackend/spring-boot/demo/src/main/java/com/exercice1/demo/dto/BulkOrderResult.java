@@ -0,0 +1,19 @@
+package com.exercice1.demo.dto;
+
+/**
+ * Issue d'une commande d'un import en masse : {@code index} est sa position dans la requête
+ */
+public record BulkOrderResult(
+    int index,
+    Long orderId,
+    Double totalAmount,
+    String error
+) {
+    public static BulkOrderResult created(int index, Long orderId, Double totalAmount) {
+        return new BulkOrderResult(index, orderId, totalAmount, null);
+    }
+
+    public static BulkOrderResult failed(int index, String error) {
+        return new BulkOrderResult(index, null, null, error);
+    }
+}
@@ -0,0 +1,15 @@
+package com.exercice1.demo.dto;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Commandes passées un jour donné : nombre par statut courant et chiffre d'affaires hors annulations
+ */
+public record DailyOrderStatistics(
+    LocalDate day,
+    long orderCount,
+    Map<String, Long> statusCounts,
+    double revenue
+) {
+}
@@ -3,6 +3,7 @@ package com.exercice1.demo.dto;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
@@ -20,11 +21,11 @@ public class PagedResponse<T> {
     @Schema(description = "Nombre d'éléments par page", example = "10")
     private int pageSize;
     
-    @Schema(description = "Nombre total d'éléments", example = "150")
-    private long totalElements;
+    @Schema(description = "Nombre total d'éléments (null si le comptage n'a pas été demandé)", example = "150")
+    private Long totalElements;
     
-    @Schema(description = "Nombre total de pages", example = "15")
-    private int totalPages;
+    @Schema(description = "Nombre total de pages (null si le comptage n'a pas été demandé)", example = "15")
+    private Integer totalPages;
     
     @Schema(description = "True si c'est la première page", example = "true")
     private boolean isFirst;
@@ -38,6 +39,9 @@ public class PagedResponse<T> {
     @Schema(description = "True s'il existe une page précédente", example = "false")
     private boolean hasPrevious;
     
+    @Schema(description = "Curseur à renvoyer pour obtenir la page suivante en mode keyset (null s'il n'y en a pas)")
+    private String nextCursor;
+    
     public PagedResponse(Page<T> page) {
         this.content = page.getContent();
         this.pageNumber = page.getNumber();
@@ -49,4 +53,19 @@ public class PagedResponse<T> {
         this.hasNext = page.hasNext();
         this.hasPrevious = page.hasPrevious();
     }
+    
+    /**
+     * Page sans comptage : pas de totaux, seulement la présence d'une page suivante
+     * et, en mode keyset, le curseur permettant de l'obtenir
+     */
+    public PagedResponse(Slice<T> slice, String nextCursor) {
+        this.content = slice.getContent();
+        this.pageNumber = slice.getNumber();
+        this.pageSize = slice.getSize();
+        this.isFirst = slice.isFirst();
+        this.isLast = slice.isLast();
+        this.hasNext = slice.hasNext();
+        this.hasPrevious = slice.hasPrevious();
+        this.nextCursor = nextCursor;
+    }
 }
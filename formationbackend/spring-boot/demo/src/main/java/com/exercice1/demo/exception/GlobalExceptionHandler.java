@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -14,6 +16,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 
 import com.exercice1.security.exception.AccountBlockedException;
+import com.exercice1.security.exception.HashingCapacityExceededException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -88,6 +91,20 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
         }
 
+        @ExceptionHandler(OptimisticLockingFailureException.class)
+        public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(
+                        OptimisticLockingFailureException ex) {
+
+                ErrorResponse errorResponse = ErrorResponse.builder()
+                                .timestamp(LocalDateTime.now())
+                                .status(HttpStatus.CONFLICT.value())
+                                .error("Conflict")
+                                .message("La ressource a été modifiée simultanément, veuillez réessayer")
+                                .build();
+
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+
         @ExceptionHandler(Exception.class)
         public ResponseEntity<ErrorResponse> handleGlobalExceptions(
                         Exception ex) {
@@ -126,6 +143,20 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
         }
 
+        @ExceptionHandler(HashingCapacityExceededException.class)
+        public ResponseEntity<ErrorResponse> handleHashingCapacity(HashingCapacityExceededException ex) {
+                ErrorResponse errorResponse = ErrorResponse.builder()
+                                .timestamp(LocalDateTime.now())
+                                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                                .error("Too Many Requests")
+                                .message(ex.getMessage())
+                                .build();
+
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(errorResponse);
+        }
+
         @ExceptionHandler(InsufficientStockException.class)
         public ResponseEntity<ErrorResponse> handleInsufficientStockExceptions(
                         Exception ex) {
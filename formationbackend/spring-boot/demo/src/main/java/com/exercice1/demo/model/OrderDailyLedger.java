@@ -0,0 +1,50 @@
+package com.exercice1.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import com.exercice1.demo.model.enums.OrderStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totaux des commandes passées un jour donné, par statut courant
+ */
+@Entity
+@Table(name = "order_daily_ledger")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDailyLedger {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private double revenue;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        // "day" est un mot réservé en H2
+        @Column(name = "order_day")
+        private LocalDate day;
+
+        @Enumerated(EnumType.STRING)
+        private OrderStatus status;
+    }
+}
@@ -0,0 +1,34 @@
+package com.exercice1.demo.model;
+
+import com.exercice1.demo.model.enums.OrderStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totaux courants des commandes pour un statut (une ligne par statut)
+ */
+@Entity
+@Table(name = "order_status_ledger")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusLedger {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private double revenue;
+}
@@ -0,0 +1,17 @@
+package com.exercice1.demo.repository;
+
+import com.exercice1.demo.model.enums.Category;
+
+/**
+ * Agrégats d'une catégorie calculés en un seul passage sur la table des produits
+ * (les sommes sont nulles si aucune ligne ne porte de valeur)
+ */
+public record CategoryAggregate(
+        Category category,
+        Long productCount,
+        Long pricedCount,
+        Double priceSum,
+        Double stockValue,
+        Long lowStockCount,
+        Long outOfStockCount) {
+}
@@ -0,0 +1,40 @@
+package com.exercice1.demo.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+import com.exercice1.demo.exception.InvalidDataException;
+
+/**
+ * Jeton de continuation opaque pour la pagination par clé (keyset) :
+ * clé de tri + id de la dernière ligne renvoyée.
+ * La valeur de tri est transportée sous forme de texte et reconvertie
+ * dans le type de l'attribut au moment de la requête.
+ */
+public record KeysetCursor(String property, Sort.Direction direction, Long lastId, String lastValue) {
+
+    private static final String SEPARATOR = "|";
+
+    public Sort.Order order() {
+        return new Sort.Order(direction, property);
+    }
+
+    public String encode() {
+        String raw = property + SEPARATOR + direction + SEPARATOR + lastId + SEPARATOR
+                + (lastValue == null ? "" : "=" + lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            String value = parts[3].isEmpty() ? null : parts[3].substring(1);
+            return new KeysetCursor(parts[0], Sort.Direction.valueOf(parts[1]), Long.valueOf(parts[2]), value);
+        } catch (RuntimeException ex) {
+            throw new InvalidDataException("Curseur de pagination invalide");
+        }
+    }
+}
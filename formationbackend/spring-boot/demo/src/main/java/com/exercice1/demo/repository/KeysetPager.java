@@ -0,0 +1,182 @@
+package com.exercice1.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.exercice1.demo.exception.InvalidDataException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute.PersistentAttributeType;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+
+/**
+ * Pagination sans COUNT(*) pour les endpoints paginés :
+ * <ul>
+ * <li>{@link #slice} : pagination par OFFSET, on lit une ligne de plus pour savoir s'il y a une suite ;</li>
+ * <li>{@link #seek} : pagination par clé ("seek") sur (clé de tri, id), coût constant quelle que
+ * soit la profondeur de la page.</li>
+ * </ul>
+ * La clause {@code where} utilise l'alias {@code e} ; elle provient du code (jamais de l'utilisateur).
+ * Les propriétés de tri sont validées contre le métamodèle avant d'être insérées dans le JPQL.
+ */
+@Component
+public class KeysetPager {
+
+    private static final String ID = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <T> Slice<T> slice(Class<T> type, String where, Map<String, Object> params, Pageable pageable) {
+        EntityType<T> entity = entityManager.getMetamodel().entity(type);
+        String orderBy = pageable.getSort().stream()
+                .map(order -> {
+                    attribute(entity, order.getProperty());
+                    return "e." + order.getProperty() + (order.isDescending() ? " DESC" : " ASC");
+                })
+                .collect(Collectors.joining(", "));
+        String jpql = "SELECT e FROM " + entity.getName() + " e" + where(where, null)
+                + (orderBy.isEmpty() ? "" : " ORDER BY " + orderBy);
+
+        TypedQuery<T> query = entityManager.createQuery(jpql, type);
+        params.forEach(query::setParameter);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        return toSlice(query.getResultList(), pageable);
+    }
+
+    /**
+     * Page suivant le curseur (ou première page si {@code cursor} est vide) ;
+     * {@code order} n'est utilisé que pour la première page, le curseur portant son propre tri.
+     */
+    public <T> KeysetSlice<T> seek(Class<T> type, String where, Map<String, Object> params, Sort.Order order,
+            String cursor, int size) {
+        EntityType<T> entity = entityManager.getMetamodel().entity(type);
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        Sort.Order sortOrder = after != null ? after.order() : order;
+        String property = sortOrder.getProperty();
+        SingularAttribute<? super T, ?> attribute = attribute(entity, property);
+        boolean byId = ID.equals(property);
+        boolean nullable = !byId && attribute.isOptional();
+        String cmp = sortOrder.isDescending() ? "<" : ">";
+        String direction = sortOrder.isDescending() ? " DESC" : " ASC";
+
+        String seek = null;
+        if (after != null) {
+            if (byId) {
+                seek = "e.id " + cmp + " :seekId";
+            } else if (after.lastValue() == null) {
+                // On est dans la queue des valeurs nulles (triées en dernier)
+                seek = "(e." + property + " IS NULL AND e.id " + cmp + " :seekId)";
+            } else {
+                seek = "(e." + property + " " + cmp + " :seekValue OR (e." + property + " = :seekValue AND e.id "
+                        + cmp + " :seekId)" + (nullable ? " OR e." + property + " IS NULL" : "") + ")";
+            }
+        }
+        String orderBy = byId ? "e.id" + direction
+                : "e." + property + direction + (nullable ? " NULLS LAST" : "") + ", e.id" + direction;
+        String jpql = "SELECT e FROM " + entity.getName() + " e" + where(where, seek) + " ORDER BY " + orderBy;
+
+        TypedQuery<T> query = entityManager.createQuery(jpql, type);
+        params.forEach(query::setParameter);
+        if (after != null) {
+            query.setParameter("seekId", after.lastId());
+            if (!byId && after.lastValue() != null) {
+                query.setParameter("seekValue", convert(after.lastValue(), attribute.getJavaType()));
+            }
+        }
+        query.setMaxResults(size + 1);
+        Slice<T> slice = toSlice(query.getResultList(), PageRequest.of(0, size, Sort.by(sortOrder)));
+
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            T last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(last);
+            Object value = PropertyAccessorFactory.forBeanPropertyAccess(last).getPropertyValue(property);
+            nextCursor = new KeysetCursor(property, sortOrder.getDirection(), ((Number) id).longValue(),
+                    value == null ? null : value.toString()).encode();
+        }
+        return new KeysetSlice<>(slice, nextCursor);
+    }
+
+    private static <T> Slice<T> toSlice(List<T> rows, Pageable pageable) {
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, pageable.getPageSize())) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private static String where(String where, String seek) {
+        List<String> conditions = new ArrayList<>();
+        if (where != null && !where.isBlank()) {
+            conditions.add("(" + where + ")");
+        }
+        if (seek != null) {
+            conditions.add(seek);
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static <T> SingularAttribute<? super T, ?> attribute(EntityType<T> entity, String property) {
+        try {
+            SingularAttribute<? super T, ?> attribute = entity.getSingularAttribute(property);
+            if (attribute.getPersistentAttributeType() == PersistentAttributeType.BASIC) {
+                return attribute;
+            }
+        } catch (IllegalArgumentException ex) {
+            // propriété inconnue : traitée ci-dessous
+        }
+        throw new InvalidDataException("Tri impossible sur la propriété : " + property);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object convert(String value, Class<?> type) {
+        if (type == String.class) {
+            return value;
+        }
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == Double.class || type == double.class) {
+            return Double.valueOf(value);
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return Boolean.valueOf(value);
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        if (type == Instant.class) {
+            return Instant.parse(value);
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value);
+        }
+        throw new InvalidDataException("Tri par curseur non supporté pour le type " + type.getSimpleName());
+    }
+}
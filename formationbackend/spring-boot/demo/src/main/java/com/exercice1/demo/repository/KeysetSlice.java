@@ -0,0 +1,16 @@
+package com.exercice1.demo.repository;
+
+import java.util.function.Function;
+
+import org.springframework.data.domain.Slice;
+
+/**
+ * Page obtenue par clé : le contenu (sans total) et le curseur de la page suivante
+ * (null s'il n'y en a pas)
+ */
+public record KeysetSlice<T>(Slice<T> slice, String nextCursor) {
+
+    public <R> KeysetSlice<R> map(Function<? super T, ? extends R> converter) {
+        return new KeysetSlice<>(slice.map(converter), nextCursor);
+    }
+}
@@ -0,0 +1,31 @@
+package com.exercice1.demo.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.exercice1.demo.model.OrderDailyLedger;
+import com.exercice1.demo.model.enums.OrderStatus;
+
+public interface OrderDailyLedgerRepository extends JpaRepository<OrderDailyLedger, OrderDailyLedger.Key> {
+
+    @Modifying
+    @Query("UPDATE OrderDailyLedger l SET l.orderCount = l.orderCount + :count, l.revenue = l.revenue + CAST(:amount AS Double) "
+            + "WHERE l.id.day = :day AND l.id.status = :status")
+    int add(@Param("day") LocalDate day, @Param("status") OrderStatus status, @Param("count") long count,
+            @Param("amount") double amount);
+
+    // Crée la ligne d'un jour et d'un statut si elle manque, sans erreur si elle existe déjà
+    @Modifying
+    @Query(value = "INSERT INTO order_daily_ledger (order_day, status, order_count, revenue) SELECT :day, :status, 0, 0 "
+            + "WHERE NOT EXISTS (SELECT 1 FROM order_daily_ledger WHERE order_day = :day AND status = :status)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("day") LocalDate day, @Param("status") String status);
+
+    @Query("SELECT l FROM OrderDailyLedger l WHERE l.id.day BETWEEN :from AND :to ORDER BY l.id.day")
+    List<OrderDailyLedger> findBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
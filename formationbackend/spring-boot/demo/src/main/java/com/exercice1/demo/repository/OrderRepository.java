@@ -1,9 +1,15 @@
 package com.exercice1.demo.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,10 +20,32 @@ import com.exercice1.demo.model.enums.OrderStatus;
 public interface OrderRepository extends JpaRepository<Order,Long> {
     Page<Order> findByCustomerId(Long customerId, Pageable pageable);
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.id = :id")
     Optional<Order> findByIdWithItems(@Param("id") Long id);
-    @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
-    Long countByStatus(@Param("status") OrderStatus status);
-    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.status != 'CANCELLED'")
-    Double calculateTotalRevenue();
+
+    /**
+     * Charge en une requête les commandes données avec leurs lignes et produits
+     */
+    @EntityGraph(attributePaths = { "items", "items.product" })
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
+    /**
+     * Commandes d'une page rechargées avec leurs lignes, dans l'ordre de la page : une requête
+     * au lieu d'une par commande, que les commandes de la page soient gérées ou détachées
+     */
+    default List<Order> fetchItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Long, Order> fetched = findWithItemsByIdIn(orders.stream().map(Order::getId).toList()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity(), (first, duplicate) -> first));
+        return orders.stream().map(order -> fetched.getOrDefault(order.getId(), order)).toList();
+    }
+
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM Order o GROUP BY o.status")
+    List<Object[]> aggregateByStatus();
+
+    @Query("SELECT CAST(o.orderDate AS LocalDate), o.status, COUNT(o), SUM(o.totalAmount) FROM Order o "
+            + "GROUP BY CAST(o.orderDate AS LocalDate), o.status")
+    List<Object[]> aggregateByDayAndStatus();
 }
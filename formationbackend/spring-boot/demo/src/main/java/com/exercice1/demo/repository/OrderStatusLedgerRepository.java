@@ -0,0 +1,34 @@
+package com.exercice1.demo.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.exercice1.demo.model.OrderStatusLedger;
+import com.exercice1.demo.model.enums.OrderStatus;
+
+import jakarta.persistence.LockModeType;
+
+public interface OrderStatusLedgerRepository extends JpaRepository<OrderStatusLedger, OrderStatus> {
+
+    // CAST explicite : sans lui Hibernate génère "cast(? as float($p))" que H2 refuse
+    @Modifying
+    @Query("UPDATE OrderStatusLedger l SET l.orderCount = l.orderCount + :count, l.revenue = l.revenue + CAST(:amount AS Double) "
+            + "WHERE l.status = :status")
+    int add(@Param("status") OrderStatus status, @Param("count") long count, @Param("amount") double amount);
+
+    // Crée la ligne d'un statut si elle manque, sans erreur si elle existe déjà
+    @Modifying
+    @Query(value = "INSERT INTO order_status_ledger (status, order_count, revenue) SELECT :status, 0, 0 "
+            + "WHERE NOT EXISTS (SELECT 1 FROM order_status_ledger WHERE status = :status)", nativeQuery = true)
+    int insertIfAbsent(@Param("status") String status);
+
+    // Verrouille la ligne d'un statut : les transactions de commande attendent la fin de la réconciliation
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM OrderStatusLedger l WHERE l.status = :status")
+    Optional<OrderStatusLedger> lock(@Param("status") OrderStatus status);
+}
@@ -0,0 +1,107 @@
+package com.exercice1.demo.repository;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import com.exercice1.demo.model.enums.Category;
+
+/**
+ * Critères optionnels du filtrage multicritères des produits (null = critère absent)
+ */
+public record ProductFilter(
+        Category category,
+        Double minPrice,
+        Double maxPrice,
+        Integer minStock,
+        Integer maxStock,
+        String keyword) {
+
+    static final int CATEGORY = 1;
+    static final int MIN_PRICE = 1 << 1;
+    static final int MAX_PRICE = 1 << 2;
+    static final int MIN_STOCK = 1 << 3;
+    static final int MAX_STOCK = 1 << 4;
+    static final int KEYWORD = 1 << 5;
+
+    /**
+     * Forme de la requête : un bit par critère présent
+     */
+    int shape() {
+        int shape = 0;
+        if (category != null) {
+            shape |= CATEGORY;
+        }
+        if (minPrice != null) {
+            shape |= MIN_PRICE;
+        }
+        if (maxPrice != null) {
+            shape |= MAX_PRICE;
+        }
+        if (minStock != null) {
+            shape |= MIN_STOCK;
+        }
+        if (maxStock != null) {
+            shape |= MAX_STOCK;
+        }
+        if (keyword != null && !keyword.isBlank()) {
+            shape |= KEYWORD;
+        }
+        return shape;
+    }
+
+    /**
+     * Prédicats JPQL (alias {@code e}) des seuls critères présents, vide si aucun
+     */
+    public String where() {
+        int shape = shape();
+        StringJoiner where = new StringJoiner(" AND ");
+        if ((shape & CATEGORY) != 0) {
+            where.add("e.category = :category");
+        }
+        if ((shape & MIN_PRICE) != 0) {
+            where.add("e.price >= :minPrice");
+        }
+        if ((shape & MAX_PRICE) != 0) {
+            where.add("e.price <= :maxPrice");
+        }
+        if ((shape & MIN_STOCK) != 0) {
+            where.add("e.stock >= :minStock");
+        }
+        if ((shape & MAX_STOCK) != 0) {
+            where.add("e.stock <= :maxStock");
+        }
+        if ((shape & KEYWORD) != 0) {
+            where.add("(LOWER(e.name) LIKE :keyword OR LOWER(e.description) LIKE :keyword)");
+        }
+        return where.toString();
+    }
+
+    /**
+     * Valeurs des paramètres utilisés par {@link #where()}
+     */
+    public Map<String, Object> parameters() {
+        Map<String, Object> parameters = new HashMap<>();
+        int shape = shape();
+        if ((shape & CATEGORY) != 0) {
+            parameters.put("category", category);
+        }
+        if ((shape & MIN_PRICE) != 0) {
+            parameters.put("minPrice", minPrice);
+        }
+        if ((shape & MAX_PRICE) != 0) {
+            parameters.put("maxPrice", maxPrice);
+        }
+        if ((shape & MIN_STOCK) != 0) {
+            parameters.put("minStock", minStock);
+        }
+        if ((shape & MAX_STOCK) != 0) {
+            parameters.put("maxStock", maxStock);
+        }
+        if ((shape & KEYWORD) != 0) {
+            parameters.put("keyword", "%" + keyword.toLowerCase(Locale.ROOT) + "%");
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,10 @@
+package com.exercice1.demo.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.exercice1.demo.model.Product;
+
+public interface ProductFilterRepository {
+    Page<Product> findByFilter(ProductFilter filter, Pageable pageable);
+}
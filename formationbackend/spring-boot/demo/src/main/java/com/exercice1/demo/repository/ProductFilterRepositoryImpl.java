@@ -0,0 +1,94 @@
+package com.exercice1.demo.repository;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.exercice1.demo.exception.InvalidDataException;
+import com.exercice1.demo.model.Product;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+
+/**
+ * Filtrage dynamique des produits : seuls les prédicats des critères présents sont émis,
+ * ce qui laisse la base choisir l'index du critère réellement fourni
+ * (au lieu d'un plan générique "(:param IS NULL OR ...)").
+ * Le texte JPQL de chaque forme (critères présents + tri) est construit une seule fois
+ * et mis en cache ; Hibernate réutilise alors son plan compilé pour ce même texte.
+ */
+public class ProductFilterRepositoryImpl implements ProductFilterRepository {
+
+    private record QueryShape(int shape, Sort sort) {
+    }
+
+    private record CompiledQuery(String select, String count) {
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<QueryShape, CompiledQuery> compiledQueries = new ConcurrentHashMap<>();
+
+    private volatile Set<String> sortableProperties;
+
+    @Override
+    public Page<Product> findByFilter(ProductFilter filter, Pageable pageable) {
+        CompiledQuery compiled = compiledQueries.computeIfAbsent(new QueryShape(filter.shape(), pageable.getSort()),
+                queryShape -> compile(filter.where(), queryShape.sort()));
+
+        TypedQuery<Product> query = entityManager.createQuery(compiled.select(), Product.class);
+        Map<String, Object> parameters = filter.parameters();
+        parameters.forEach(query::setParameter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> {
+            TypedQuery<Long> countQuery = entityManager.createQuery(compiled.count(), Long.class);
+            parameters.forEach(countQuery::setParameter);
+            return countQuery.getSingleResult();
+        });
+    }
+
+    private CompiledQuery compile(String predicates, Sort sort) {
+        String where = predicates.isEmpty() ? "" : " WHERE " + predicates;
+        return new CompiledQuery(
+                "SELECT e FROM Product e" + where + orderBy(sort),
+                "SELECT COUNT(e) FROM Product e" + where);
+    }
+
+    private String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        Set<String> allowed = sortableProperties();
+        return sort.stream()
+                .map(order -> {
+                    // Le nom de propriété est concaténé au JPQL : on n'accepte que les attributs connus
+                    if (!allowed.contains(order.getProperty())) {
+                        throw new InvalidDataException("Tri impossible sur la propriété : " + order.getProperty());
+                    }
+                    return "e." + order.getProperty() + (order.isDescending() ? " DESC" : " ASC");
+                })
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
+
+    private Set<String> sortableProperties() {
+        if (sortableProperties == null) {
+            sortableProperties = entityManager.getMetamodel().entity(Product.class).getSingularAttributes()
+                    .stream()
+                    .map(Attribute::getName)
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        return sortableProperties;
+    }
+}
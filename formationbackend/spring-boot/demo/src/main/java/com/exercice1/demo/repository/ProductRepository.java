@@ -1,18 +1,22 @@
 package com.exercice1.demo.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.exercice1.demo.model.Product;
 import com.exercice1.demo.model.enums.Category;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductFilterRepository {
     List<Product> findByCategory(Category category);
 
     List<Product> findByNameContainingIgnoreCase(String name);
@@ -23,43 +27,42 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Page<Product> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String name, String description,Pageable pageable);
 
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    List<Product> findTop1000ByIdGreaterThanOrderByIdAsc(Long id);
+
     Page<Product> findByCategory(Category category, Pageable pageable);
 
     Page<Product> findByPriceBetween(Double min, Double max, Pageable pageable);
 
     Page<Product> findByStockLessThan(Integer threshold, Pageable pageable);
 
-    @Query("SELECT p FROM Product p WHERE " +
-            "(:category IS NULL OR p.category = :category) AND " +
-            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-            "(:minStock IS NULL OR p.stock >= :minStock) AND " +
-            "(:maxStock IS NULL OR p.stock <= :maxStock) AND " +
-            "(:keyword IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-            "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    Page<Product> findByFilters(
-            @Param("category") Category category,
-            @Param("minPrice") Double minPrice,
-            @Param("maxPrice") Double maxPrice,
-            @Param("minStock") Integer minStock,
-            @Param("maxStock") Integer maxStock,
-            @Param("keyword") String keyword,
-            Pageable pageable);
-
-    @Query("SELECT COUNT(p) FROM Product p GROUP BY p.category")
-    List<Object[]> countByCategory();
-
-    @Query("SELECT p.category, COUNT(p), AVG(p.price), SUM(p.price * p.stock) " +
-            "FROM Product p GROUP BY p.category")
-    List<Object[]> getStatisticsByCategory();
-
-    long countByStockLessThan(Integer threshold);
-
-    long countByStock(Integer stock);
-
-    @Query("SELECT SUM(p.price * p.stock) FROM Product p")
-    Double calculateTotalStockValue();
-
-    @Query("SELECT AVG(p.price) FROM Product p")
-    Double calculateAveragePrice();
+    /**
+     * Toutes les statistiques produits en une seule lecture groupée par catégorie
+     */
+    @Query("SELECT new com.exercice1.demo.repository.CategoryAggregate(p.category, COUNT(p), COUNT(p.price), "
+            + "SUM(p.price), SUM(p.price * p.stock), "
+            + "SUM(CASE WHEN p.stock < :lowStockThreshold THEN 1L ELSE 0L END), "
+            + "SUM(CASE WHEN p.stock = 0 THEN 1L ELSE 0L END)) "
+            + "FROM Product p GROUP BY p.category")
+    List<CategoryAggregate> aggregateByCategory(@Param("lowStockThreshold") int lowStockThreshold);
+
+    /**
+     * Décrémente le stock seulement s'il est suffisant (1 si réservé, 0 sinon)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.version = p.version + 1 "
+            + "WHERE p.id = :id AND p.stock >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Incrément atomique du stock, sans lecture préalable ni conflit de version possible
+     * (1 si le produit existe, 0 sinon)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity, p.version = p.version + 1, "
+            + "p.updatedAt = :updatedAt WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity,
+            @Param("updatedAt") LocalDateTime updatedAt);
 }
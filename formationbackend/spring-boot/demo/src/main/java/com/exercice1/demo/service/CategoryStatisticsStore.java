@@ -0,0 +1,157 @@
+package com.exercice1.demo.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.exercice1.demo.dto.CategoryStatistics;
+import com.exercice1.demo.model.Product;
+import com.exercice1.demo.model.enums.Category;
+import com.exercice1.demo.repository.CategoryAggregate;
+import com.exercice1.demo.repository.ProductRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Agrégats courants par catégorie (nombre, somme des prix, valeur du stock),
+ * mis à jour en O(1) à chaque écriture sur un produit au lieu d'un GROUP BY par requête.
+ * Une réconciliation périodique recalcule les totaux depuis la base
+ * (écritures hors application, dérive des sommes flottantes) ; les écritures
+ * appliquées pendant l'agrégation sont rejouées par-dessus, la réconciliation
+ * aboutit donc même sous un flux continu d'écritures.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryStatisticsStore {
+
+    private final ProductRepository productRepository;
+
+    private final Map<Category, Totals> totals = new EnumMap<>(Category.class);
+
+    // Écritures appliquées pendant une réconciliation en cours (null sinon), rejouées sur l'agrégat
+    private List<Delta> replay;
+
+    // Une seule réconciliation à la fois
+    private final Object reconcileLock = new Object();
+
+    private record Delta(Contribution before, Contribution after) {
+    }
+
+    /**
+     * Part d'un produit dans les agrégats de sa catégorie
+     */
+    public record Contribution(Category category, Double price, Integer stock) {
+
+        public static Contribution of(Product product) {
+            return new Contribution(product.getCategory(), product.getPrice(), product.getStock());
+        }
+
+        double stockValue() {
+            return price == null || stock == null ? 0 : price * stock;
+        }
+    }
+
+    private static final class Totals {
+        long count;
+        long priced;
+        double priceSum;
+        double stockValue;
+
+        void add(Contribution contribution, int sign) {
+            count += sign;
+            if (contribution.price() != null) {
+                priced += sign;
+                priceSum += sign * contribution.price();
+            }
+            stockValue += sign * contribution.stockValue();
+        }
+    }
+
+    /**
+     * Remplace la contribution {@code before} par {@code after} après le commit
+     * (null pour une création ou une suppression)
+     */
+    public void update(Contribution before, Contribution after) {
+        AfterCommit.run(() -> apply(before, after));
+    }
+
+    public synchronized List<CategoryStatistics> snapshot() {
+        List<CategoryStatistics> statistics = new ArrayList<>();
+        totals.forEach((category, total) -> {
+            if (total.count > 0) {
+                statistics.add(CategoryStatistics.builder()
+                        .category(category.toString())
+                        .productCount(total.count)
+                        .averagePrice(total.priced == 0 ? 0 : total.priceSum / total.priced)
+                        .totalValue(total.stockValue)
+                        .build());
+            }
+        });
+        return statistics;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${statistics.reconcile.interval:300000}",
+            fixedDelayString = "${statistics.reconcile.interval:300000}")
+    public void reconcile() {
+        synchronized (reconcileLock) {
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            List<CategoryAggregate> aggregates;
+            try {
+                aggregates = productRepository.aggregateByCategory(ProductStatisticsSnapshot.LOW_STOCK_THRESHOLD);
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    replay = null;
+                }
+                throw ex;
+            }
+            synchronized (this) {
+                totals.clear();
+                for (CategoryAggregate aggregate : aggregates) {
+                    if (aggregate.category() == null) {
+                        continue;
+                    }
+                    Totals total = new Totals();
+                    total.count = aggregate.productCount();
+                    total.priced = aggregate.pricedCount();
+                    total.priceSum = aggregate.priceSum() == null ? 0 : aggregate.priceSum();
+                    total.stockValue = aggregate.stockValue() == null ? 0 : aggregate.stockValue();
+                    totals.put(aggregate.category(), total);
+                }
+                // Une écriture validée juste avant la lecture peut être comptée deux fois :
+                // l'écart est borné aux écritures en vol et corrigé au passage suivant
+                if (!replay.isEmpty()) {
+                    log.debug("Réconciliation des statistiques par catégorie : {} écriture(s) rejouée(s)", replay.size());
+                }
+                replay.forEach(delta -> add(delta.before(), delta.after()));
+                replay = null;
+            }
+        }
+    }
+
+    private synchronized void apply(Contribution before, Contribution after) {
+        if (replay != null) {
+            replay.add(new Delta(before, after));
+        }
+        add(before, after);
+    }
+
+    private void add(Contribution before, Contribution after) {
+        if (before != null && before.category() != null) {
+            totals.computeIfAbsent(before.category(), c -> new Totals()).add(before, -1);
+        }
+        if (after != null && after.category() != null) {
+            totals.computeIfAbsent(after.category(), c -> new Totals()).add(after, 1);
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.exercice1.demo.service;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import java.util.Map;
+
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
@@ -13,6 +13,7 @@ import com.exercice1.demo.exception.CustomerException;
 import com.exercice1.demo.model.Customer;
 import com.exercice1.demo.model.Order;
 import com.exercice1.demo.repository.CustomerRepository;
+import com.exercice1.demo.repository.KeysetPager;
 import com.exercice1.demo.repository.OrderRepository;
 
 import jakarta.transaction.Transactional;
@@ -25,6 +26,7 @@ public class CustomerService {
     
     private final CustomerRepository customerRepository;
     private final OrderRepository orderRepository;
+    private final KeysetPager keysetPager;
     @Transactional
     public CustomerResponse createCustomer(CustomerRequest request){
         Customer createdCustomer = Customer.builder()
@@ -43,13 +45,10 @@ public class CustomerService {
         return new CustomerResponse(customer);
     }
     @Transactional
-    public PagedResponse<CustomerResponse> getAllCustomers(int page, int size, String sortBy, String direction){
-        Sort sort = direction.equals("DESC")?Sort.by(sortBy).descending():Sort.by(sortBy).ascending();
-        PageRequest pageRequest = PageRequest.of(page, size, sort);
-        Page<Customer> costumerPaged = customerRepository.findAll(pageRequest);
-        Page<CustomerResponse> productsResponse = costumerPaged.map(CustomerResponse::new);
-        return new PagedResponse<CustomerResponse>(productsResponse);
-
+    public PagedResponse<CustomerResponse> getAllCustomers(int page, int size, String sortBy, String direction,
+            String cursor, boolean withCount){
+        return Pagination.page(keysetPager, Customer.class, null, Map.of(), Pagination.sort(sortBy, direction),
+                page, size, cursor, withCount, customerRepository::findAll, CustomerResponse::new);
     }
     @Transactional
     public CustomerResponse updateCustomer(Long id, CustomerRequest request){
@@ -71,11 +70,12 @@ public class CustomerService {
         customerRepository.delete(customer);
     }
     @Transactional
-    public PagedResponse<OrderResponse> getCustomerOrders(Long customerId, int page, int size){
-        PageRequest pageRequest = PageRequest.of(page, size);
-        Page<Order> orderPaged = orderRepository.findByCustomerId(customerId,pageRequest);
-        Page<OrderResponse> orderResponse = orderPaged.map(OrderResponse::new);
-        return new PagedResponse<OrderResponse>(orderResponse);
-
+    public PagedResponse<OrderResponse> getCustomerOrders(Long customerId, int page, int size, String cursor,
+            boolean withCount){
+        // Tri stable sur l'id : requis par la pagination par clé, et évite des pages incohérentes en OFFSET
+        return Pagination.page(keysetPager, Order.class, "e.customer.id = :customerId",
+                Map.of("customerId", customerId), Sort.by("id"), page, size, cursor, withCount,
+                pageable -> orderRepository.findByCustomerId(customerId, pageable), orderRepository::fetchItems,
+                OrderResponse::new);
     }
 }
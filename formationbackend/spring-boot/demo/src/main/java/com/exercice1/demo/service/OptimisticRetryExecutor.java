@@ -0,0 +1,61 @@
+package com.exercice1.demo.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exécute une mutation dans sa propre transaction et la rejoue, avec un backoff
+ * exponentiel et aléatoire, tant qu'elle échoue sur un conflit de version (@Version).
+ * Le nombre de tentatives est borné : au-delà, le conflit est remonté à l'appelant.
+ */
+@Component
+@Slf4j
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+            @Value("${stock.retry.max-attempts:8}") int maxAttempts,
+            @Value("${stock.retry.backoff-ms:15}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> mutation) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> mutation.get());
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+                log.debug("Conflit de version (tentative {}/{}), nouvel essai", attempt, maxAttempts);
+                backoff(attempt, ex);
+            }
+        }
+    }
+
+    private void backoff(int attempt, OptimisticLockingFailureException cause) {
+        // Plafond exponentiel, délai tiré au hasard en dessous pour désynchroniser les concurrents
+        long ceiling = backoffMillis << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
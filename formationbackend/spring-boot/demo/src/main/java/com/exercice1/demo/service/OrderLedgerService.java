@@ -0,0 +1,238 @@
+package com.exercice1.demo.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.exercice1.demo.dto.DailyOrderStatistics;
+import com.exercice1.demo.dto.OrderStatisticsResponse;
+import com.exercice1.demo.model.Order;
+import com.exercice1.demo.model.OrderDailyLedger;
+import com.exercice1.demo.model.OrderStatusLedger;
+import com.exercice1.demo.model.enums.OrderStatus;
+import com.exercice1.demo.repository.OrderDailyLedgerRepository;
+import com.exercice1.demo.repository.OrderRepository;
+import com.exercice1.demo.repository.OrderStatusLedgerRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registre des commandes : nombre et chiffre d'affaires par statut, et par jour de commande.
+ * Mis à jour par des UPDATE incrémentaux dans la transaction qui crée ou fait changer
+ * de statut une commande ; les statistiques se lisent alors sur quelques lignes,
+ * quel que soit l'historique. Au démarrage, seules les lignes manquantes sont créées ;
+ * le recalcul complet (reconcile) se fait sous verrou, sans vider le registre.
+ */
+@Service
+@Slf4j
+public class OrderLedgerService {
+
+    private final OrderStatusLedgerRepository statusLedgerRepository;
+    private final OrderDailyLedgerRepository dailyLedgerRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderLedgerService(OrderStatusLedgerRepository statusLedgerRepository,
+            OrderDailyLedgerRepository dailyLedgerRepository, OrderRepository orderRepository,
+            PlatformTransactionManager transactionManager) {
+        this.statusLedgerRepository = statusLedgerRepository;
+        this.dailyLedgerRepository = dailyLedgerRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private record Totals(long count, double amount) {
+
+        Totals plus(long count, double amount) {
+            return new Totals(this.count + count, this.amount + amount);
+        }
+    }
+
+    /**
+     * Crée les lignes manquantes ; un registre neuf (ou un nouveau statut) est calculé sous verrou
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        int created = transactionTemplate.execute(status -> {
+            int inserted = 0;
+            for (OrderStatus orderStatus : OrderStatus.values()) {
+                inserted += statusLedgerRepository.insertIfAbsent(orderStatus.name());
+            }
+            return inserted;
+        });
+        seedDays();
+        if (created > 0) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Crée à l'avance les lignes du jour et du lendemain : à minuit, les commandes
+     * n'ont qu'à incrémenter des lignes existantes
+     */
+    @Scheduled(cron = "${orders.ledger.seed-cron:0 0 * * * *}")
+    public void seedDays() {
+        LocalDate today = LocalDate.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (LocalDate day : List.of(today, today.plusDays(1))) {
+                    for (OrderStatus orderStatus : OrderStatus.values()) {
+                        dailyLedgerRepository.insertIfAbsent(day, orderStatus.name());
+                    }
+                }
+            });
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Lignes du registre du {} créées par une autre instance", today);
+        }
+    }
+
+    /**
+     * Recalcule le registre depuis la table des commandes. Les lignes de statut sont
+     * verrouillées avant l'agrégation : toute transaction de commande en cours est soit
+     * déjà validée (et comptée), soit bloquée jusqu'à la fin et appliquée par-dessus.
+     */
+    public void reconcile() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Même ordre de verrouillage que les mises à jour (ordre des statuts)
+            Map<OrderStatus, OrderStatusLedger> byStatus = new EnumMap<>(OrderStatus.class);
+            for (OrderStatus orderStatus : OrderStatus.values()) {
+                byStatus.put(orderStatus, statusLedgerRepository.lock(orderStatus)
+                        .orElseThrow(() -> new IllegalStateException("Ligne du registre absente pour le statut " + orderStatus)));
+            }
+            Map<OrderStatus, Totals> statusTotals = new EnumMap<>(OrderStatus.class);
+            for (Object[] row : orderRepository.aggregateByStatus()) {
+                statusTotals.put((OrderStatus) row[0], new Totals((Long) row[1], valueOf(row[2])));
+            }
+            byStatus.forEach((orderStatus, ledger) -> {
+                Totals totals = statusTotals.getOrDefault(orderStatus, new Totals(0, 0));
+                ledger.setOrderCount(totals.count());
+                ledger.setRevenue(totals.amount());
+            });
+
+            Map<OrderDailyLedger.Key, Totals> dayTotals = new LinkedHashMap<>();
+            for (Object[] row : orderRepository.aggregateByDayAndStatus()) {
+                dayTotals.put(new OrderDailyLedger.Key((LocalDate) row[0], (OrderStatus) row[1]),
+                        new Totals((Long) row[2], valueOf(row[3])));
+            }
+            for (OrderDailyLedger ledger : dailyLedgerRepository.findAll()) {
+                Totals totals = dayTotals.remove(ledger.getId());
+                ledger.setOrderCount(totals == null ? 0 : totals.count());
+                ledger.setRevenue(totals == null ? 0 : totals.amount());
+            }
+            dayTotals.forEach((key, totals) -> {
+                dailyLedgerRepository.insertIfAbsent(key.getDay(), key.getStatus().name());
+                dailyLedgerRepository.add(key.getDay(), key.getStatus(), totals.count(), totals.amount());
+            });
+        });
+        log.info("Registre des commandes réconcilié");
+    }
+
+    /**
+     * Comptabilise des commandes qui viennent d'être créées (transaction de l'appelant)
+     */
+    public void recordCreated(Collection<Order> orders) {
+        // EnumMap : lignes toujours mises à jour dans l'ordre des statuts (pas d'interblocage)
+        Map<OrderStatus, Totals> byStatus = new EnumMap<>(OrderStatus.class);
+        Map<OrderDailyLedger.Key, Totals> byDay = new LinkedHashMap<>();
+        for (Order order : orders) {
+            byStatus.merge(order.getStatus(), new Totals(1, order.getTotalAmount()),
+                    (a, b) -> a.plus(b.count(), b.amount()));
+            byDay.merge(new OrderDailyLedger.Key(order.getOrderDate().toLocalDate(), order.getStatus()),
+                    new Totals(1, order.getTotalAmount()), (a, b) -> a.plus(b.count(), b.amount()));
+        }
+        byStatus.forEach((status, totals) -> addToStatus(status, totals.count(), totals.amount()));
+        byDay.forEach((key, totals) -> addToDay(key.getDay(), key.getStatus(), totals.count(), totals.amount()));
+    }
+
+    /**
+     * Déplace une commande de son ancien statut vers son statut courant (transaction de l'appelant)
+     */
+    public void recordTransition(Order order, OrderStatus previous) {
+        if (previous == order.getStatus()) {
+            return;
+        }
+        double amount = order.getTotalAmount();
+        LocalDate day = order.getOrderDate().toLocalDate();
+        Map<OrderStatus, Totals> deltas = new EnumMap<>(OrderStatus.class);
+        deltas.put(previous, new Totals(-1, -amount));
+        deltas.put(order.getStatus(), new Totals(1, amount));
+        deltas.forEach((status, totals) -> addToStatus(status, totals.count(), totals.amount()));
+        deltas.forEach((status, totals) -> addToDay(day, status, totals.count(), totals.amount()));
+    }
+
+    public OrderStatisticsResponse statistics() {
+        long delivered = 0;
+        double revenue = 0;
+        for (OrderStatusLedger ledger : statusLedgerRepository.findAll()) {
+            if (ledger.getStatus() == OrderStatus.DELIVERED) {
+                delivered = ledger.getOrderCount();
+            }
+            if (ledger.getStatus() != OrderStatus.CANCELLED) {
+                revenue += ledger.getRevenue();
+            }
+        }
+        return new OrderStatisticsResponse(delivered, revenue);
+    }
+
+    public List<DailyOrderStatistics> daily(LocalDate from, LocalDate to) {
+        Map<LocalDate, List<OrderDailyLedger>> byDay = new TreeMap<>();
+        for (OrderDailyLedger ledger : dailyLedgerRepository.findBetween(from, to)) {
+            if (ledger.getOrderCount() > 0) {
+                byDay.computeIfAbsent(ledger.getId().getDay(), day -> new ArrayList<>()).add(ledger);
+            }
+        }
+        List<DailyOrderStatistics> statistics = new ArrayList<>();
+        byDay.forEach((day, ledgers) -> {
+            long count = 0;
+            double revenue = 0;
+            Map<String, Long> statusCounts = new LinkedHashMap<>();
+            for (OrderDailyLedger ledger : ledgers) {
+                count += ledger.getOrderCount();
+                statusCounts.put(ledger.getId().getStatus().toString(), ledger.getOrderCount());
+                if (ledger.getId().getStatus() != OrderStatus.CANCELLED) {
+                    revenue += ledger.getRevenue();
+                }
+            }
+            statistics.add(new DailyOrderStatistics(day, count, statusCounts, revenue));
+        });
+        return statistics;
+    }
+
+    /**
+     * Une ligne manquante est créée dans la transaction de l'appelant, sans jamais perdre le delta
+     */
+    private void addToStatus(OrderStatus status, long count, double amount) {
+        if (statusLedgerRepository.add(status, count, amount) == 0) {
+            statusLedgerRepository.insertIfAbsent(status.name());
+            if (statusLedgerRepository.add(status, count, amount) == 0) {
+                throw new IllegalStateException("Ligne du registre absente pour le statut " + status);
+            }
+        }
+    }
+
+    private void addToDay(LocalDate day, OrderStatus status, long count, double amount) {
+        if (dailyLedgerRepository.add(day, status, count, amount) == 0) {
+            dailyLedgerRepository.insertIfAbsent(day, status.name());
+            if (dailyLedgerRepository.add(day, status, count, amount) == 0) {
+                throw new IllegalStateException("Ligne du registre absente pour le " + day + " / " + status);
+            }
+        }
+    }
+
+    private static double valueOf(Object sum) {
+        return sum == null ? 0 : ((Number) sum).doubleValue();
+    }
+}
@@ -1,18 +1,32 @@
 package com.exercice1.demo.service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.exercice1.demo.dto.BulkOrderResponse;
+import com.exercice1.demo.dto.BulkOrderResult;
+import com.exercice1.demo.dto.DailyOrderStatistics;
 import com.exercice1.demo.dto.OrderItemRequest;
 import com.exercice1.demo.dto.OrderRequest;
 import com.exercice1.demo.dto.OrderResponse;
 import com.exercice1.demo.dto.OrderStatisticsResponse;
 import com.exercice1.demo.dto.PagedResponse;
 import com.exercice1.demo.exception.InsufficientStockException;
+import com.exercice1.demo.exception.InvalidDataException;
 import com.exercice1.demo.exception.OrderCancelledException;
 import com.exercice1.demo.model.Customer;
 import com.exercice1.demo.model.Order;
@@ -20,9 +34,11 @@ import com.exercice1.demo.model.OrderItem;
 import com.exercice1.demo.model.Product;
 import com.exercice1.demo.model.enums.OrderStatus;
 import com.exercice1.demo.repository.CustomerRepository;
-import com.exercice1.demo.repository.OrderItemRepository;
+import com.exercice1.demo.repository.KeysetPager;
 import com.exercice1.demo.repository.OrderRepository;
 import com.exercice1.demo.repository.ProductRepository;
+import com.exercice1.demo.service.StockReservationService.LineResult;
+import com.exercice1.demo.service.StockReservationService.Reservation;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -33,42 +49,52 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
+    private final KeysetPager keysetPager;
+    private final StockReservationService stockReservationService;
     private final ProductRepository productRepository;
-    private final OrderItemRepository orderItemRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final OrderLedgerService orderLedgerService;
+
+    @Value("${orders.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${orders.bulk.max-orders:10000}")
+    private int bulkMaxOrders;
 
     @Transactional
     public OrderResponse createOrder(OrderRequest request) {
         Customer customer = customerRepository.findById(request.customerId()).orElseThrow();
-        Order order = orderRepository.save(new Order(null, customer,null, OrderStatus.PENDING, null, null));
-        List<OrderItem> lOrderItems = createOrderItems(order, request.items());
-        Double sumOrderTotal = lOrderItems.stream().mapToDouble((iOrder) -> iOrder.getSubtotal()).sum();
-        order.setItems(lOrderItems);
-        order.setTotalAmount(sumOrderTotal);
+        Order order = new Order(null, customer, null, OrderStatus.PENDING, null, null);
+        order.setItems(createOrderItems(order, reserve(request.items()), request.items()));
+        order.calculateTotal();
+        // Un seul INSERT de la commande, les lignes suivent par cascade
         orderRepository.save(order);
+        orderLedgerService.recordCreated(List.of(order));
         return new OrderResponse(order);
 
     }
 
     @Transactional
     public OrderResponse getOrderById(Long id) {
-        Order order = orderRepository.findById(id).orElseThrow();
+        Order order = orderRepository.findByIdWithItems(id).orElseThrow();
         return new OrderResponse(order);
     }
 
     @Transactional
-    public PagedResponse<OrderResponse> getAllOrders(int page, int size, String sortBy, String direction) {
-        PageRequest pageRequest = PageRequest.of(page, size);
-        Page<Order> orderPaged = orderRepository.findAll(pageRequest);
-        Page<OrderResponse> orderResponse = orderPaged.map(OrderResponse::new);
-        return new PagedResponse<OrderResponse>(orderResponse);
+    public PagedResponse<OrderResponse> getAllOrders(int page, int size, String sortBy, String direction,
+            String cursor, boolean withCount) {
+        return Pagination.page(keysetPager, Order.class, null, Map.of(), Pagination.sort(sortBy, direction), page,
+                size, cursor, withCount, orderRepository::findAll, orderRepository::fetchItems, OrderResponse::new);
     }
 
     @Transactional
     public OrderResponse updateOrderStatus(Long id, OrderStatus newStatus) {
         Order order = orderRepository.findById(id).orElseThrow();
         if (!order.getStatus().equals(OrderStatus.DELIVERED)) {
+            OrderStatus previous = order.getStatus();
             order.setStatus(newStatus);
             orderRepository.save(order);
+            orderLedgerService.recordTransition(order, previous);
             return new OrderResponse(order);
         } else {
             throw new OrderCancelledException(id);
@@ -79,40 +105,141 @@ public class OrderService {
     @Transactional
     public void cancelOrder(Long id) {
         Order order = orderRepository.findById(id).orElseThrow();
+        OrderStatus previous = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
+        orderLedgerService.recordTransition(order, previous);
     }
 
     @Transactional
-    public PagedResponse<OrderResponse> getOrdersByStatus(OrderStatus status, int page, int size) {
-        PageRequest pageRequest = PageRequest.of(page, size);
-        Page<Order> orderPaged = orderRepository.findByStatus(status, pageRequest);
-        Page<OrderResponse> orderResponse = orderPaged.map(OrderResponse::new);
-        return new PagedResponse<OrderResponse>(orderResponse);
+    public PagedResponse<OrderResponse> getOrdersByStatus(OrderStatus status, int page, int size, String cursor,
+            boolean withCount) {
+        return Pagination.page(keysetPager, Order.class, "e.status = :status", Map.of("status", status),
+                Sort.by("id"), page, size, cursor, withCount,
+                pageable -> orderRepository.findByStatus(status, pageable), orderRepository::fetchItems, OrderResponse::new);
     }
 
     @Transactional
     public OrderStatisticsResponse getOrderStatistics() {
-        Long totalVente = orderRepository.countByStatus(OrderStatus.DELIVERED);
-        Double SumTotalVente = orderRepository.calculateTotalRevenue();
-        return new OrderStatisticsResponse(totalVente, SumTotalVente);
+        return orderLedgerService.statistics();
     }
 
     @Transactional
-    private List<OrderItem> createOrderItems(Order order, List<OrderItemRequest> itemRequests) {
-        List<OrderItem> lOrderItems = itemRequests.stream()
+    public List<DailyOrderStatistics> getDailyStatistics(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidDataException("La date de début doit précéder la date de fin");
+        }
+        return orderLedgerService.daily(from, to);
+    }
+
+    /**
+     * Import en masse : les commandes sont traitées par lots, chacun dans sa transaction.
+     * Clients et produits d'un lot sont vérifiés en deux requêtes ; les commandes valides
+     * sont insérées ensemble (ids par séquence, INSERT regroupés en batch JDBC).
+     * Une commande refusée n'empêche pas les autres : chaque issue est renvoyée.
+     */
+    public BulkOrderResponse createOrders(List<OrderRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new InvalidDataException("La liste de commandes est vide");
+        }
+        if (requests.size() > bulkMaxOrders) {
+            throw new InvalidDataException("Un import est limité à " + bulkMaxOrders + " commandes");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<BulkOrderResult> results = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += bulkChunkSize) {
+            int offset = from;
+            List<OrderRequest> chunk = requests.subList(from, Math.min(from + bulkChunkSize, requests.size()));
+            try {
+                results.addAll(transaction.execute(status -> createChunk(chunk, offset)));
+            } catch (RuntimeException ex) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(BulkOrderResult.failed(offset + i, "Lot annulé : " + ex.getMessage()));
+                }
+            }
+        }
+        return BulkOrderResponse.of(results);
+    }
+
+    private List<BulkOrderResult> createChunk(List<OrderRequest> chunk, int offset) {
+        Map<Long, Customer> customers = customerRepository.findAllById(chunk.stream()
+                .map(OrderRequest::customerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        Set<Long> products = productRepository.findExistingIds(chunk.stream()
+                .filter(request -> request.items() != null)
+                .flatMap(request -> request.items().stream())
+                .filter(item -> item != null && item.productId() != null)
+                .map(OrderItemRequest::productId)
+                .collect(Collectors.toSet()));
+
+        BulkOrderResult[] results = new BulkOrderResult[chunk.size()];
+        Map<Integer, Order> orders = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            OrderRequest request = chunk.get(i);
+            String error = validate(request, customers, products);
+            if (error == null) {
+                Reservation reservation = stockReservationService.reserve(request.items());
+                if (reservation.isComplete()) {
+                    Order order = new Order(null, customers.get(request.customerId()), null, OrderStatus.PENDING,
+                            null, null);
+                    order.setItems(createOrderItems(order, reservation, request.items()));
+                    order.calculateTotal();
+                    orders.put(i, order);
+                    continue;
+                }
+                error = shortage(reservation).getMessage();
+            }
+            results[i] = BulkOrderResult.failed(offset + i, error);
+        }
+        orderRepository.saveAll(orders.values());
+        orderLedgerService.recordCreated(orders.values());
+        orders.forEach((i, order) ->
+                results[i] = BulkOrderResult.created(offset + i, order.getId(), order.getTotalAmount()));
+        return Arrays.asList(results);
+    }
+
+    private static String validate(OrderRequest request, Map<Long, Customer> customers, Set<Long> products) {
+        if (request == null || request.customerId() == null || !customers.containsKey(request.customerId())) {
+            return "Client introuvable : " + (request == null ? null : request.customerId());
+        }
+        if (request.items() == null || request.items().isEmpty()) {
+            return "La commande doit contenir au moins un produit";
+        }
+        for (OrderItemRequest item : request.items()) {
+            if (item == null || item.productId() == null || item.quantity() == null || item.quantity() <= 0) {
+                return "Chaque ligne doit indiquer un produit et une quantité positive";
+            }
+            if (!products.contains(item.productId())) {
+                return "Produit non trouvé avec l'id : " + item.productId();
+            }
+        }
+        return null;
+    }
+
+    private Reservation reserve(List<OrderItemRequest> itemRequests) {
+        Reservation reservation = stockReservationService.reserve(itemRequests);
+        if (!reservation.isComplete()) {
+            throw shortage(reservation);
+        }
+        return reservation;
+    }
+
+    private static InsufficientStockException shortage(Reservation reservation) {
+        LineResult line = reservation.firstShortage().orElseThrow();
+        return new InsufficientStockException(reservation.products().get(line.productId()).getName(),
+                line.requested(), line.available());
+    }
+
+    private List<OrderItem> createOrderItems(Order order, Reservation reservation,
+            List<OrderItemRequest> itemRequests) {
+        return itemRequests.stream()
                 .map((orderItem) -> {
-                    Product product = productRepository.findById(orderItem.productId()).orElseThrow();
-                    if (product.getStock() >= orderItem.quantity()) {
-                        product.setStock(product.getStock() - orderItem.quantity());
-                        productRepository.save(product);
-                    } else {
-                        throw new InsufficientStockException(product.getName(), orderItem.quantity(),
-                                product.getStock());
-                    }
-                    return new OrderItem(null, order, product, orderItem.quantity(), product.getPrice(), null);
+                    Product product = reservation.products().get(orderItem.productId());
+                    return new OrderItem(null, order, product, orderItem.quantity(), product.getPrice(),
+                            orderItem.quantity() * product.getPrice());
                 })
                 .collect(Collectors.toList());
-        return orderItemRepository.saveAll(lOrderItems);
     }
 }
@@ -0,0 +1,71 @@
+package com.exercice1.demo.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import com.exercice1.demo.dto.PagedResponse;
+import com.exercice1.demo.repository.KeysetPager;
+import com.exercice1.demo.repository.KeysetSlice;
+
+/**
+ * Choix du mode de pagination commun aux endpoints paginés :
+ * <ul>
+ * <li>curseur présent (vide = première page) : pagination par clé, sans OFFSET ni COUNT ;</li>
+ * <li>{@code withCount = false} : OFFSET sans COUNT ;</li>
+ * <li>sinon : page classique avec totaux (requête dérivée du repository).</li>
+ * </ul>
+ */
+final class Pagination {
+
+    private Pagination() {
+    }
+
+    static Sort sort(String sortBy, String direction) {
+        Sort sort = Sort.by(sortBy);
+        return "DESC".equals(direction) ? sort.descending() : sort.ascending();
+    }
+
+    static <E, R> PagedResponse<R> page(KeysetPager pager, Class<E> type, String where,
+            Map<String, Object> parameters, Sort sort, int page, int size, String cursor, boolean withCount,
+            Function<Pageable, Page<E>> counted, Function<E, R> mapper) {
+        return page(pager, type, where, parameters, sort, page, size, cursor, withCount, counted,
+                UnaryOperator.identity(), mapper);
+    }
+
+    /**
+     * Variante avec {@code prefetch}, appelé sur le contenu de la page avant la conversion :
+     * permet de charger les associations de toute la page en une requête au lieu d'une par élément.
+     * La conversion se fait sur les entités qu'il renvoie (dans l'ordre de la page), pas sur celles
+     * de la page : le chargement ne dépend pas du cache de premier niveau.
+     */
+    static <E, R> PagedResponse<R> page(KeysetPager pager, Class<E> type, String where,
+            Map<String, Object> parameters, Sort sort, int page, int size, String cursor, boolean withCount,
+            Function<Pageable, Page<E>> counted, UnaryOperator<List<E>> prefetch, Function<E, R> mapper) {
+        if (cursor != null) {
+            KeysetSlice<E> slice = pager.seek(type, where, parameters, sort.iterator().next(), cursor, size);
+            return new PagedResponse<>(prefetched(slice.slice(), prefetch).map(mapper), slice.nextCursor());
+        }
+        PageRequest pageable = PageRequest.of(page, size, sort);
+        if (!withCount) {
+            Slice<E> slice = pager.slice(type, where, parameters, pageable);
+            return new PagedResponse<>(prefetched(slice, prefetch).map(mapper), null);
+        }
+        Page<E> result = counted.apply(pageable);
+        return new PagedResponse<>(new PageImpl<>(prefetch.apply(result.getContent()), result.getPageable(),
+                result.getTotalElements()).map(mapper));
+    }
+
+    private static <E> Slice<E> prefetched(Slice<E> slice, UnaryOperator<List<E>> prefetch) {
+        return new SliceImpl<>(prefetch.apply(slice.getContent()), slice.getPageable(), slice.hasNext());
+    }
+}
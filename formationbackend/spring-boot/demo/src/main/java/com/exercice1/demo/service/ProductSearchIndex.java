@@ -0,0 +1,333 @@
+package com.exercice1.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.exercice1.demo.model.Product;
+import com.exercice1.demo.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index inversé en mémoire (trigrammes) sur le nom et la description des produits.
+ * Remplace les LIKE '%keyword%' qu'aucun index SQL ne peut servir :
+ * les ids candidats sont obtenus par intersection des listes de trigrammes,
+ * puis vérifiés sur le texte normalisé (même sémantique "contient" que le LIKE).
+ * Une page ne trie jamais toutes les correspondances : listes déjà triées par clé
+ * sans mot-clé, tas borné à la taille de la page avec mot-clé.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    // Sépare nom et description pour qu'un mot-clé ne chevauche pas les deux champs
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final ProductRepository productRepository;
+
+    // trigramme -> ids des produits qui le contiennent
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    // id -> document indexé
+    private final Map<Long, IndexedProduct> documents = new ConcurrentHashMap<>();
+
+    // Clés de tri servies par l'index (ordre croissant, départagé par l'id)
+    private static final Map<String, Comparator<IndexedProduct>> SORT_KEYS = Map.of(
+            "id", Comparator.comparing(IndexedProduct::id),
+            "name", Comparator.comparing(IndexedProduct::name).thenComparing(IndexedProduct::id),
+            "price", Comparator.comparing(IndexedProduct::price, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(IndexedProduct::id),
+            "createdAt", Comparator.comparing(IndexedProduct::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(IndexedProduct::id));
+
+    // clé de tri -> documents triés (parcours d'une page sans mot-clé)
+    private final Map<String, NavigableSet<IndexedProduct>> sorted = new HashMap<>();
+
+    private record IndexedProduct(Long id, String name, Double price, LocalDateTime createdAt, String text) {
+    }
+
+    public record SearchPage(List<Long> ids, int total) {
+    }
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        SORT_KEYS.forEach((property, comparator) -> sorted.put(property, new ConcurrentSkipListSet<>(comparator)));
+    }
+
+    /**
+     * Charge l'index au démarrage, par lots ordonnés sur l'id (pas d'OFFSET)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        clear();
+        long lastId = 0L;
+        List<Product> batch;
+        do {
+            batch = productRepository.findTop1000ByIdGreaterThanOrderByIdAsc(lastId);
+            batch.forEach(product -> put(toDocument(product)));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        log.info("Index de recherche produits chargé : {} produits, {} trigrammes", documents.size(),
+                postings.size());
+    }
+
+    /**
+     * Indexe (ou réindexe) un produit après le commit de la transaction
+     */
+    public void index(Product product) {
+        IndexedProduct document = toDocument(product);
+        AfterCommit.run(() -> put(document));
+    }
+
+    /**
+     * Retire un produit de l'index après le commit de la transaction
+     */
+    public void remove(Long productId) {
+        AfterCommit.run(() -> delete(productId));
+    }
+
+    /**
+     * Ids des produits dont le nom ou la description contient le mot-clé (insensible à la casse)
+     */
+    public Set<Long> search(String keyword) {
+        String needle = normalize(keyword);
+        if (needle.isEmpty()) {
+            return new HashSet<>(documents.keySet());
+        }
+        Set<Long> matches = new HashSet<>();
+        for (Long id : candidates(needle)) {
+            IndexedProduct document = documents.get(id);
+            if (document != null && document.text().contains(needle)) {
+                matches.add(id);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Vrai si l'index connaît la clé de tri et peut paginer lui-même les résultats
+     * (stock et date de mise à jour changent par UPDATE groupés que l'index ne voit pas)
+     */
+    public boolean canSortBy(String property) {
+        return SORT_KEYS.containsKey(property);
+    }
+
+    /**
+     * Page d'ids correspondant au mot-clé, triés selon l'ordre demandé, et nombre total de résultats
+     */
+    public SearchPage search(String keyword, Sort.Order order, int offset, int limit) {
+        String needle = normalize(keyword);
+        if (needle.isEmpty()) {
+            return new SearchPage(walk(order, null, offset, limit), documents.size());
+        }
+        Set<Long> matches = search(keyword);
+        return new SearchPage(top(matches, order, null, offset, limit), matches.size());
+    }
+
+    /**
+     * Au plus {@code limit} ids situés strictement après la position (valeur de tri, id)
+     * du curseur : pagination par clé sans OFFSET
+     */
+    public List<Long> searchAfter(String keyword, Sort.Order order, String lastValue, Long lastId, int limit) {
+        IndexedProduct position = lastId == null ? null : position(order.getProperty(), lastValue, lastId);
+        if (normalize(keyword).isEmpty()) {
+            return walk(order, position, 0, limit);
+        }
+        return top(search(keyword), order, position, 0, limit);
+    }
+
+    /**
+     * Valeur de tri d'un produit, telle que transportée dans un curseur. Lue dans l'index
+     * (et non dans l'entité rechargée, dont la date peut être tronquée par la base)
+     * pour que la position corresponde exactement au document indexé.
+     */
+    public String cursorValue(Product product, String property) {
+        IndexedProduct document = documents.getOrDefault(product.getId(), toDocument(product));
+        return switch (property) {
+            case "name" -> document.name();
+            case "price" -> document.price() != null ? document.price().toString() : null;
+            case "createdAt" -> document.createdAt() != null ? document.createdAt().toString() : null;
+            default -> null;
+        };
+    }
+
+    // Sans mot-clé : parcours de la liste déjà triée, coût proportionnel à la page
+    private List<Long> walk(Sort.Order order, IndexedProduct position, int offset, int limit) {
+        NavigableSet<IndexedProduct> sorted = this.sorted.get(order.getProperty());
+        if (order.isDescending()) {
+            sorted = sorted.descendingSet();
+        }
+        if (position != null) {
+            sorted = sorted.tailSet(position, false);
+        }
+        List<Long> ids = new ArrayList<>(limit);
+        Iterator<IndexedProduct> iterator = sorted.iterator();
+        for (int skipped = 0; iterator.hasNext() && ids.size() < limit;) {
+            IndexedProduct document = iterator.next();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                ids.add(document.id());
+            }
+        }
+        return ids;
+    }
+
+    // Avec mot-clé : tas borné aux offset + limit meilleurs résultats, sans trier toutes les correspondances
+    private List<Long> top(Set<Long> matches, Sort.Order order, IndexedProduct position, int offset, int limit) {
+        Comparator<IndexedProduct> comparator = comparator(order);
+        int keep = offset + limit;
+        if (keep <= 0) {
+            return List.of();
+        }
+        PriorityQueue<IndexedProduct> heap = new PriorityQueue<>(Math.min(keep, matches.size()) + 1,
+                comparator.reversed());
+        for (Long id : matches) {
+            IndexedProduct document = documents.get(id);
+            if (document == null || (position != null && comparator.compare(document, position) <= 0)) {
+                continue;
+            }
+            if (heap.size() < keep) {
+                heap.add(document);
+            } else if (comparator.compare(document, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(document);
+            }
+        }
+        List<IndexedProduct> best = new ArrayList<>(heap);
+        best.sort(comparator);
+        return best.subList(Math.min(offset, best.size()), best.size()).stream().map(IndexedProduct::id).toList();
+    }
+
+    private static IndexedProduct position(String property, String lastValue, Long lastId) {
+        return switch (property) {
+            case "name" -> new IndexedProduct(lastId, lastValue != null ? lastValue : "", null, null, "");
+            case "price" -> new IndexedProduct(lastId, "", lastValue != null ? Double.valueOf(lastValue) : null, null, "");
+            case "createdAt" -> new IndexedProduct(lastId, "", null,
+                    lastValue != null ? LocalDateTime.parse(lastValue) : null, "");
+            default -> new IndexedProduct(lastId, "", null, null, "");
+        };
+    }
+
+    private static Comparator<IndexedProduct> comparator(Sort.Order order) {
+        Comparator<IndexedProduct> comparator = SORT_KEYS.get(order.getProperty());
+        return order.isDescending() ? comparator.reversed() : comparator;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private Set<Long> candidates(String needle) {
+        if (needle.length() < GRAM_SIZE) {
+            // Mot-clé court : union des entrées qui le contiennent
+            // (tout champ indexé produit au moins une entrée)
+            Set<Long> union = new HashSet<>();
+            postings.forEach((gram, ids) -> {
+                if (gram.contains(needle)) {
+                    union.addAll(ids);
+                }
+            });
+            return union;
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        // Intersection en partant de la liste la plus courte
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private synchronized void put(IndexedProduct document) {
+        delete(document.id());
+        documents.put(document.id(), document);
+        sorted.values().forEach(set -> set.add(document));
+        for (String gram : grams(document.text())) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(document.id());
+        }
+    }
+
+    private synchronized void delete(Long id) {
+        IndexedProduct previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        sorted.values().forEach(set -> set.remove(previous));
+        for (String gram : grams(previous.text())) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private synchronized void clear() {
+        documents.clear();
+        postings.clear();
+        sorted.values().forEach(NavigableSet::clear);
+    }
+
+    private static IndexedProduct toDocument(Product product) {
+        String name = product.getName() != null ? product.getName() : "";
+        String text = normalize(name);
+        if (product.getDescription() != null) {
+            text = text + FIELD_SEPARATOR + normalize(product.getDescription());
+        }
+        return new IndexedProduct(product.getId(), name, product.getPrice(), product.getCreatedAt(), text);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (String field : text.split(String.valueOf(FIELD_SEPARATOR))) {
+            if (field.length() < GRAM_SIZE) {
+                // Champ trop court pour un trigramme : indexé tel quel
+                if (!field.isEmpty()) {
+                    grams.add(field);
+                }
+                continue;
+            }
+            for (int i = 0; i + GRAM_SIZE <= field.length(); i++) {
+                grams.add(field.substring(i, i + GRAM_SIZE));
+            }
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,13 +1,21 @@
 package com.exercice1.demo.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.exercice1.demo.dto.CategoryStatistics;
@@ -20,7 +28,11 @@ import com.exercice1.demo.exception.InvalidDataException;
 import com.exercice1.demo.exception.ResourceNotFoundException;
 import com.exercice1.demo.model.Product;
 import com.exercice1.demo.model.enums.Category;
+import com.exercice1.demo.repository.KeysetCursor;
+import com.exercice1.demo.repository.KeysetPager;
+import com.exercice1.demo.repository.ProductFilter;
 import com.exercice1.demo.repository.ProductRepository;
+import com.exercice1.demo.service.CategoryStatisticsStore.Contribution;
 
 import lombok.RequiredArgsConstructor;
 
@@ -30,6 +42,11 @@ import lombok.RequiredArgsConstructor;
 public class ProductService implements ProductServiceInterface {
 
     private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final KeysetPager keysetPager;
+    private final ProductStatisticsSnapshot statisticsSnapshot;
+    private final CategoryStatisticsStore categoryStatistics;
+    private final OptimisticRetryExecutor stockRetry;
 
     @Override
     @Transactional(readOnly = true)
@@ -53,25 +70,41 @@ public class ProductService implements ProductServiceInterface {
         boolean exists = productRepository.existsByName(request.getName());
         if (!exists) {
             Product product = productRepository.save(request.toEntity());
+            searchIndex.index(product);
+            statisticsSnapshot.invalidate();
+            categoryStatistics.update(null, Contribution.of(product));
             return new ProductResponse(product);
         }
         throw new DuplicateResourceException("Un produit avec le nom " + request.getName() + " existe déjà");
 
     }
 
+    /**
+     * Un réassort (quantité positive) passe par un UPDATE atomique ;
+     * un retrait est vérifié puis écrit avec verrouillage optimiste, rejoué en cas de conflit.
+     * Chaque tentative a sa propre transaction.
+     */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse updateStock(Long id, Integer quantity) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Produit introuvable"));
-        Integer newStock = product.getStock() + quantity;
-        if (newStock < 0) {
-            throw new InvalidDataException(
-                    "Stock insuffisant. Stock actuel: " + product.getStock() + ", quantité demandée: " + quantity);
+        if (quantity > 0) {
+            return stockRetry.execute(() -> incrementStock(id, quantity));
         }
-        product.setStock(newStock);
-        productRepository.save(product);
-        return new ProductResponse(product);
+        return stockRetry.execute(() -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Produit introuvable"));
+            Contribution before = Contribution.of(product);
+            Integer newStock = product.getStock() + quantity;
+            if (newStock < 0) {
+                throw new InvalidDataException(
+                        "Stock insuffisant. Stock actuel: " + product.getStock() + ", quantité demandée: " + quantity);
+            }
+            product.setStock(newStock);
+            productRepository.saveAndFlush(product);
+            statisticsSnapshot.invalidate();
+            categoryStatistics.update(before, Contribution.of(product));
+            return new ProductResponse(product);
+        });
     }
 
     @Override
@@ -79,12 +112,16 @@ public class ProductService implements ProductServiceInterface {
     public ProductResponse updateProduct(Long id, ProductRequest request) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Produit non trouvé avec l'id : " + id));
+        Contribution before = Contribution.of(product);
         product.setCategory(Category.valueOf(request.getCategory()));
         product.setDescription(request.getDescription());
         product.setName(request.getName());
         product.setPrice(request.getPrice());
         product.setStock(request.getStock());
         productRepository.save(product);
+        searchIndex.index(product);
+        statisticsSnapshot.invalidate();
+        categoryStatistics.update(before, Contribution.of(product));
         return new ProductResponse(product);
     }
 
@@ -94,6 +131,9 @@ public class ProductService implements ProductServiceInterface {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Produit non trouvé avec l'id : " + id));
         productRepository.delete(product);
+        searchIndex.remove(id);
+        statisticsSnapshot.invalidate();
+        categoryStatistics.update(Contribution.of(product), null);
     }
 
     @Override
@@ -111,129 +151,128 @@ public class ProductService implements ProductServiceInterface {
     }
 
     @Override
-    public PagedResponse<ProductResponse> getAllProducts(int page, int size, String sortBy, String direction) {
-        Sort sort = Sort.by(sortBy);
-        if (direction.equals("DESC")) {
-            sort = sort.descending();
-        } else {
-            sort = sort.ascending();
-        }
-        PageRequest pageable = PageRequest.of(page, size, sort);
-        Page<Product> products = productRepository.findAll(pageable);
-        Page<ProductResponse> productsResponse = products.map(ProductResponse::new);
-        return new PagedResponse<>(productsResponse);
+    @Transactional(readOnly = true)
+    public PagedResponse<ProductResponse> getAllProducts(int page, int size, String sortBy, String direction,
+            String cursor, boolean withCount) {
+        return page(null, Map.of(), Pagination.sort(sortBy, direction), page, size, cursor, withCount,
+                productRepository::findAll);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<ProductResponse> searchProducts(String keyword, int page, int size, String sortBy,
-            String direction) {
-        Sort sort = Sort.by(sortBy);
-        if (direction.equals("DESC")) {
-            sort = sort.descending();
-        } else {
-            sort = sort.ascending();
+            String direction, String cursor, boolean withCount) {
+        if (!searchIndex.canSortBy(sortBy)) {
+            // Tri que l'index ne couvre pas (stock, mise à jour) : requête filtrée paginée en base,
+            // jamais la liste complète des correspondances en paramètres
+            return filterProducts(null, null, null, null, null, keyword, page, size, sortBy, direction, cursor,
+                    withCount);
+        }
+        // L'index trie et pagine lui-même : seuls les produits de la page sont chargés
+        Sort sort = Pagination.sort(sortBy, direction);
+        if (cursor != null) {
+            return seekInIndex(keyword, sort.getOrderFor(sortBy), cursor, size);
         }
         PageRequest pageable = PageRequest.of(page, size, sort);
-        Page<Product> productPaged = productRepository
-                .findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(keyword, keyword, pageable);
-        Page<ProductResponse> productsResponse = productPaged.map(ProductResponse::new);
-        return new PagedResponse<ProductResponse>(productsResponse);
+        ProductSearchIndex.SearchPage hits = searchIndex.search(keyword, sort.getOrderFor(sortBy),
+                (int) pageable.getOffset(), size);
+        Page<Product> productPaged = new PageImpl<>(findAllInOrder(hits.ids()), pageable, hits.total());
+        return new PagedResponse<ProductResponse>(productPaged.map(ProductResponse::new));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<ProductResponse> getProductsByCategory(String category, int page, int size, String sortBy,
-            String direction) {
-        Sort sort = Sort.by(sortBy);
-        if (direction.equals("DESC")) {
-            sort = sort.descending();
-        } else {
-            sort = sort.ascending();
-        }
-        PageRequest pageable = PageRequest.of(page, size, sort);
-        Page<Product> productPaged = productRepository.findByCategory(Category.valueOf(category.toUpperCase()),
-                pageable);
-        Page<ProductResponse> productsResponse = productPaged.map(ProductResponse::new);
-        return new PagedResponse<ProductResponse>(productsResponse);
+            String direction, String cursor, boolean withCount) {
+        Category cat = Category.valueOf(category.toUpperCase());
+        return page("e.category = :category", Map.of("category", cat), Pagination.sort(sortBy, direction), page, size,
+                cursor, withCount, pageable -> productRepository.findByCategory(cat, pageable));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<ProductResponse> getProductsByPriceRange(Double min, Double max, int page, int size,
-            String sortBy, String direction) {
-        Sort sort = Sort.by(sortBy);
-        if (direction.equals("DESC")) {
-            sort = sort.descending();
-        } else {
-            sort = sort.ascending();
-        }
-        PageRequest pageable = PageRequest.of(page, size, sort);
-        Page<Product> productPaged = productRepository.findByPriceBetween(min, max, pageable);
-        Page<ProductResponse> productsResponse = productPaged.map(ProductResponse::new);
-        return new PagedResponse<ProductResponse>(productsResponse);
+            String sortBy, String direction, String cursor, boolean withCount) {
+        return page("e.price BETWEEN :min AND :max", Map.of("min", min, "max", max), Pagination.sort(sortBy, direction), page,
+                size, cursor, withCount, pageable -> productRepository.findByPriceBetween(min, max, pageable));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<ProductResponse> getLowStockProducts(Integer threshold, int page, int size, String sortBy,
-            String direction) {
-        Sort sort = Sort.by(sortBy);
-        if (direction.equals("DESC")) {
-            sort = sort.descending();
-        } else {
-            sort = sort.ascending();
-        }
-        PageRequest pageable = PageRequest.of(page, size, sort);
-        Page<Product> productPaged = productRepository.findByStockLessThan(threshold, pageable);
-        Page<ProductResponse> productsResponse = productPaged.map(ProductResponse::new);
-        return new PagedResponse<ProductResponse>(productsResponse);
+            String direction, String cursor, boolean withCount) {
+        return page("e.stock < :threshold", Map.of("threshold", threshold), Pagination.sort(sortBy, direction), page, size,
+                cursor, withCount, pageable -> productRepository.findByStockLessThan(threshold, pageable));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<ProductResponse> filterProducts(String category, Double minPrice, Double maxPrice,
-            Integer minStock, Integer maxStock, String keyword, int page, int size, String sortBy, String direction) {
-        Sort sort = Sort.by(sortBy);
-        if (direction.equals("DESC")) {
-            sort = sort.descending();
-        } else {
-            sort = sort.ascending();
-        }
+            Integer minStock, Integer maxStock, String keyword, int page, int size, String sortBy, String direction,
+            String cursor, boolean withCount) {
         Category cat = category != null ? Category.valueOf(category.toUpperCase()) : null;
-        PageRequest pageable = PageRequest.of(page, size, sort);
-        Page<Product> productPaged = productRepository.findByFilters(cat, minPrice,
-                maxPrice, minStock, maxStock, keyword, pageable);
-        Page<ProductResponse> productsResponse = productPaged.map(ProductResponse::new);
-        return new PagedResponse<ProductResponse>(productsResponse);
+        ProductFilter filter = new ProductFilter(cat, minPrice, maxPrice, minStock, maxStock, keyword);
+        return page(filter.where(), filter.parameters(), Pagination.sort(sortBy, direction), page, size, cursor, withCount,
+                pageable -> productRepository.findByFilter(filter, pageable));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductStatistics getStatistics() {
-        long totalProducts = productRepository.count();
-        double totalValue = productRepository.calculateTotalStockValue();
-        double averagePrice = productRepository.calculateAveragePrice();
-        Map<String, Long> categoryCounts = productRepository.countByCategory().stream()
-                .collect(Collectors.toMap(
-                        obj -> obj[0].toString(),
-                        obj -> (Long) obj[1]));
-        long lowStockCount = productRepository.countByStockLessThan(10);
-        long outOfStockCount = productRepository.countByStock(0);
-        return ProductStatistics.builder()
-                .averagePrice(averagePrice)
-                .categoryCounts(categoryCounts)
-                .lowStockCount(lowStockCount)
-                .outOfStockCount(outOfStockCount)
-                .totalProducts(totalProducts)
-                .totalValue(totalValue).build();
+        return statisticsSnapshot.get();
     }
 
     @Override
     public List<CategoryStatistics> getStatisticsByCategory() {
-        return productRepository.getStatisticsByCategory().stream()
-                .map(obj -> CategoryStatistics.builder()
-                        .category(obj[0].toString())
-                        .productCount((Long) obj[1])
-                        .averagePrice((Double) obj[2])
-                        .totalValue((Double) obj[3])
-                        .build()
-
-                )
+        return categoryStatistics.snapshot();
+    }
+
+    private ProductResponse incrementStock(Long id, int quantity) {
+        if (productRepository.incrementStock(id, quantity, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("Produit introuvable");
+        }
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Produit introuvable"));
+        statisticsSnapshot.invalidate();
+        categoryStatistics.update(
+                new Contribution(product.getCategory(), product.getPrice(), product.getStock() - quantity),
+                Contribution.of(product));
+        return new ProductResponse(product);
+    }
+
+    private PagedResponse<ProductResponse> page(String where, Map<String, Object> parameters, Sort sort, int page,
+            int size, String cursor, boolean withCount, Function<Pageable, Page<Product>> counted) {
+        return Pagination.page(keysetPager, Product.class, where, parameters, sort, page, size, cursor, withCount,
+                counted, ProductResponse::new);
+    }
+
+    // Pagination par clé directement dans l'index de recherche
+    private PagedResponse<ProductResponse> seekInIndex(String keyword, Sort.Order order, String cursor, int size) {
+        KeysetCursor after = cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        Sort.Order sortOrder = after != null ? after.order() : order;
+        List<Long> ids = after == null ? searchIndex.search(keyword, sortOrder, 0, size + 1).ids()
+                : searchIndex.searchAfter(keyword, sortOrder, after.lastValue(), after.lastId(), size + 1);
+        boolean hasNext = ids.size() > size;
+        List<Product> products = findAllInOrder(ids.subList(0, Math.min(size, ids.size())));
+        String nextCursor = null;
+        if (hasNext && !products.isEmpty()) {
+            Product last = products.get(products.size() - 1);
+            nextCursor = new KeysetCursor(sortOrder.getProperty(), sortOrder.getDirection(), last.getId(),
+                    searchIndex.cursorValue(last, sortOrder.getProperty()))
+                    .encode();
+        }
+        Slice<ProductResponse> slice = new SliceImpl<>(products, PageRequest.of(0, size, Sort.by(sortOrder)),
+                hasNext).map(ProductResponse::new);
+        return new PagedResponse<>(slice, nextCursor);
+    }
+
+    // Charge les produits par id en conservant l'ordre des ids fournis
+    private List<Product> findAllInOrder(List<Long> ids) {
+        Map<Long, Product> byId = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
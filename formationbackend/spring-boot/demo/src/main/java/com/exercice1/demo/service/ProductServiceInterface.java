@@ -18,12 +18,12 @@ public interface ProductServiceInterface {
     void deleteProduct(Long id);
     List<ProductResponse> getProductListByCategory(Category category);
     public ProductResponse updateStock(Long id, Integer quantity);
-    public PagedResponse<ProductResponse> getAllProducts(int page, int size, String sortBy, String direction);
-    public PagedResponse<ProductResponse> searchProducts(String keyword, int page, int size, String sortBy, String direction);
-    public PagedResponse<ProductResponse> getProductsByCategory(String category, int page, int size, String sortBy, String direction);
-    public PagedResponse<ProductResponse> getProductsByPriceRange(Double min, Double max, int page, int size, String sortBy, String direction);
-    public PagedResponse<ProductResponse> getLowStockProducts(Integer threshold, int page, int size, String sortBy, String direction);
-    public PagedResponse<ProductResponse> filterProducts(String category, Double minPrice, Double maxPrice,Integer minStock, Integer maxStock, String keyword,int page, int size, String sortBy, String direction);
+    public PagedResponse<ProductResponse> getAllProducts(int page, int size, String sortBy, String direction, String cursor, boolean withCount);
+    public PagedResponse<ProductResponse> searchProducts(String keyword, int page, int size, String sortBy, String direction, String cursor, boolean withCount);
+    public PagedResponse<ProductResponse> getProductsByCategory(String category, int page, int size, String sortBy, String direction, String cursor, boolean withCount);
+    public PagedResponse<ProductResponse> getProductsByPriceRange(Double min, Double max, int page, int size, String sortBy, String direction, String cursor, boolean withCount);
+    public PagedResponse<ProductResponse> getLowStockProducts(Integer threshold, int page, int size, String sortBy, String direction, String cursor, boolean withCount);
+    public PagedResponse<ProductResponse> filterProducts(String category, Double minPrice, Double maxPrice,Integer minStock, Integer maxStock, String keyword,int page, int size, String sortBy, String direction, String cursor, boolean withCount);
     public ProductStatistics getStatistics();
     public List<CategoryStatistics> getStatisticsByCategory();
 }
@@ -0,0 +1,93 @@
+package com.exercice1.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.exercice1.demo.dto.ProductStatistics;
+import com.exercice1.demo.repository.CategoryAggregate;
+import com.exercice1.demo.repository.ProductRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Statistiques globales matérialisées : calculées par une seule requête groupée,
+ * puis servies depuis la mémoire jusqu'à la prochaine écriture sur les produits.
+ * Un numéro de génération empêche de publier un calcul commencé avant une invalidation.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductStatisticsSnapshot {
+
+    static final int LOW_STOCK_THRESHOLD = 10;
+
+    private final ProductRepository productRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(long generation, ProductStatistics statistics) {
+    }
+
+    public ProductStatistics get() {
+        long current = generation.get();
+        Snapshot cached = snapshot;
+        if (cached != null && cached.generation() == current) {
+            return cached.statistics();
+        }
+        ProductStatistics statistics = compute(productRepository.aggregateByCategory(LOW_STOCK_THRESHOLD));
+        synchronized (this) {
+            if (generation.get() == current) {
+                snapshot = new Snapshot(current, statistics);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Périme le snapshot après le commit de la transaction qui modifie des produits
+     */
+    public void invalidate() {
+        AfterCommit.run(generation::incrementAndGet);
+    }
+
+    private static ProductStatistics compute(List<CategoryAggregate> aggregates) {
+        long totalProducts = 0;
+        long pricedProducts = 0;
+        double priceSum = 0;
+        double totalValue = 0;
+        long lowStockCount = 0;
+        long outOfStockCount = 0;
+        Map<String, Long> categoryCounts = new LinkedHashMap<>();
+        for (CategoryAggregate aggregate : aggregates) {
+            totalProducts += aggregate.productCount();
+            pricedProducts += aggregate.pricedCount();
+            priceSum += valueOf(aggregate.priceSum());
+            totalValue += valueOf(aggregate.stockValue());
+            lowStockCount += valueOf(aggregate.lowStockCount());
+            outOfStockCount += valueOf(aggregate.outOfStockCount());
+            if (aggregate.category() != null) {
+                categoryCounts.put(aggregate.category().toString(), aggregate.productCount());
+            }
+        }
+        return ProductStatistics.builder()
+                .averagePrice(pricedProducts == 0 ? 0 : priceSum / pricedProducts)
+                .categoryCounts(categoryCounts)
+                .lowStockCount(lowStockCount)
+                .outOfStockCount(outOfStockCount)
+                .totalProducts(totalProducts)
+                .totalValue(totalValue).build();
+    }
+
+    private static double valueOf(Double value) {
+        return value == null ? 0 : value;
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0 : value;
+    }
+}
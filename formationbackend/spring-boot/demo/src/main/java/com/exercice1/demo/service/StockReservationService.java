@@ -0,0 +1,136 @@
+package com.exercice1.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.exercice1.demo.dto.OrderItemRequest;
+import com.exercice1.demo.exception.InvalidDataException;
+import com.exercice1.demo.exception.ResourceNotFoundException;
+import com.exercice1.demo.model.Product;
+import com.exercice1.demo.repository.ProductRepository;
+import com.exercice1.demo.service.CategoryStatisticsStore.Contribution;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Réservation du stock des lignes d'une commande sans lecture-vérification-écriture :
+ * <ul>
+ * <li>les quantités sont regroupées par produit ;</li>
+ * <li>chaque produit est décrémenté par un UPDATE conditionnel ({@code stock >= :quantity}),
+ * dans l'ordre croissant des ids pour que deux commandes concurrentes verrouillent
+ * les lignes dans le même ordre (pas d'interblocage) ;</li>
+ * <li>les produits sont ensuite chargés en un seul {@code findAllById}, après avoir détaché
+ * ceux que la transaction gérait déjà : les UPDATE groupés ne les mettent pas à jour.</li>
+ * </ul>
+ * La réservation est tout ou rien : au premier produit insuffisant, les décréments déjà
+ * appliqués sont restitués, ce qui permet d'enchaîner plusieurs commandes dans une même transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final ProductRepository productRepository;
+    private final ProductStatisticsSnapshot statisticsSnapshot;
+    private final CategoryStatisticsStore categoryStatistics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Résultat d'une ligne de commande : {@code available} est le stock restant
+     * après réservation, ou le stock insuffisant constaté
+     */
+    public record LineResult(Long productId, int requested, boolean reserved, int available) {
+    }
+
+    /**
+     * {@code shortageProductId} : produit dont le stock n'a pas suffi (null si tout est réservé)
+     */
+    public record Reservation(Map<Long, Product> products, List<LineResult> lines, Long shortageProductId) {
+
+        public boolean isComplete() {
+            return shortageProductId == null;
+        }
+
+        public Optional<LineResult> firstShortage() {
+            return lines.stream().filter(line -> line.productId().equals(shortageProductId)).findFirst();
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Reservation reserve(List<OrderItemRequest> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemRequest item : items) {
+            if (item.productId() == null || item.quantity() == null || item.quantity() <= 0) {
+                throw new InvalidDataException("Chaque ligne doit indiquer un produit et une quantité positive");
+            }
+            quantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+
+        // Ordre croissant des ids (TreeMap) : verrous pris toujours dans le même ordre
+        Map<Long, Boolean> reserved = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            boolean ok = productRepository.reserveStock(entry.getKey(), entry.getValue()) == 1;
+            reserved.put(entry.getKey(), ok);
+            if (!ok) {
+                break;
+            }
+        }
+        Long shortageProductId = reserved.entrySet().stream()
+                .filter(entry -> !entry.getValue())
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+        boolean complete = shortageProductId == null;
+        if (!complete) {
+            // Restitution des lignes déjà décrémentées (les verrous restent pris jusqu'au commit)
+            LocalDateTime now = LocalDateTime.now();
+            reserved.forEach((productId, ok) -> {
+                if (ok) {
+                    productRepository.incrementStock(productId, quantities.get(productId), now);
+                }
+            });
+        }
+
+        // Un produit déjà géré (commande précédente du même lot) garderait son ancien stock
+        for (Long productId : quantities.keySet()) {
+            entityManager.detach(entityManager.getReference(Product.class, productId));
+        }
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        quantities.keySet().stream()
+                .filter(productId -> !products.containsKey(productId))
+                .findFirst()
+                .ifPresent(productId -> {
+                    throw new ResourceNotFoundException("Produit non trouvé avec l'id : " + productId);
+                });
+
+        if (complete) {
+            quantities.forEach((productId, quantity) -> {
+                Product product = products.get(productId);
+                categoryStatistics.update(
+                        new Contribution(product.getCategory(), product.getPrice(), product.getStock() + quantity),
+                        Contribution.of(product));
+            });
+            statisticsSnapshot.invalidate();
+        }
+
+        List<LineResult> lines = items.stream()
+                .map(item -> new LineResult(item.productId(), item.quantity(), complete,
+                        Objects.requireNonNullElse(products.get(item.productId()).getStock(), 0)))
+                .collect(Collectors.toList());
+        return new Reservation(products, lines, shortageProductId);
+    }
+}
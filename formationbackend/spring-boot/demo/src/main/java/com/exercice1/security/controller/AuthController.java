@@ -1,16 +1,12 @@
 package com.exercice1.security.controller;
 
 import java.time.LocalDateTime;
-import java.util.Set;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -33,11 +29,15 @@ import com.exercice1.security.exception.DuplicateResourceException;
 import com.exercice1.security.model.RefreshToken;
 import com.exercice1.security.model.User;
 import com.exercice1.security.repository.UserRepository;
-import com.exercice1.security.security.EmailService;
 import com.exercice1.security.security.JwtService;
+import com.exercice1.security.security.JwtUserDetails;
+import com.exercice1.security.service.AccessTokenRevocationService;
 import com.exercice1.security.service.LoginAttemptService;
 import com.exercice1.security.service.RefreshTokenService;
+import com.exercice1.security.service.UserService;
+import com.exercice1.security.service.UserService.Registration;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -51,8 +51,9 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
-    private final EmailService emailService;
     private final LoginAttemptService loginAttemptService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+    private final UserService userService;
 
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
@@ -63,31 +64,17 @@ public class AuthController {
             throw new DuplicateResourceException("Email already exists");
         }
 
-        // Générer token de vérification
-        String verificationToken = UUID.randomUUID().toString();
-
-        User user = User.builder()
-                .username(request.getUsername())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .roles(Set.of("ROLE_USER"))
-                .enabled(false) // ← Pas activé par défaut
-                .verificationToken(verificationToken)
-                .verificationTokenExpiry(LocalDateTime.now().plusHours(24))
-                .build();
-
-        userRepository.save(user);
-
-        // Envoyer email de vérification
-        emailService.sendVerificationEmail(user.getEmail(), verificationToken);
+        // Hachage hors transaction : l'attente du pool de hachage ne tient pas de connexion
+        String encodedPassword = passwordEncoder.encode(request.getPassword());
+        Registration registration = userService.register(request, encodedPassword);
+        User user = registration.user();
 
         // Générer tokens (même si non vérifié, pour tester)
         String accessToken = jwtService.generateToken(toUserDetails(user), false);
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user, false);
 
         return ResponseEntity.ok(AuthResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(refreshToken.getToken())
+                .refreshToken(registration.refreshToken().getToken())
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .tokenType("Bearer")
@@ -100,21 +87,7 @@ public class AuthController {
  */
 @PostMapping("/resend-verification")
 public ResponseEntity<String> resendVerification(@Valid @RequestBody VerificationRequest request) {
-    User user = userRepository.findByEmail(request.getEmail())
-        .orElseThrow(() -> new InvalidDataException("User not found"));
-    
-    if (user.isEnabled()) {
-        throw new InvalidDataException("Email already verified");
-    }
-    
-    // Générer nouveau token
-    String newToken = UUID.randomUUID().toString();
-    user.setVerificationToken(newToken);
-    user.setVerificationTokenExpiry(LocalDateTime.now().plusHours(24));
-    userRepository.save(user);
-    
-    // Renvoyer email
-    emailService.sendVerificationEmail(user.getEmail(), newToken);
+    userService.resendVerification(request.getEmail());
     
     return ResponseEntity.ok("Verification email sent. Please check your inbox.");
 }
@@ -130,7 +103,7 @@ public ResponseEntity<String> changePassword(
     User user = userRepository.findByUsername(username)
         .orElseThrow(() -> new InvalidDataException("User not found"));
     
-    // Vérifier l'ancien mot de passe
+    // Vérifier l'ancien mot de passe (hors transaction)
     if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
         throw new InvalidDataException("Old password is incorrect");
     }
@@ -140,15 +113,8 @@ public ResponseEntity<String> changePassword(
         throw new InvalidDataException("New password must be different from old password");
     }
     
-    // Changer le mot de passe
-    user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-    userRepository.save(user);
-    
-    // Invalider tous les refresh tokens de l'utilisateur
-    refreshTokenService.revokeUserRefreshToken(user);
-    
-    // Envoyer email de notification
-    emailService.sendPasswordChangedEmail(user.getEmail(), user.getUsername());
+    // Changer le mot de passe et invalider tous les tokens de l'utilisateur
+    userService.replacePassword(user.getId(), user.getPassword(), passwordEncoder.encode(request.getNewPassword()));
     
     return ResponseEntity.ok("Password changed successfully. Please login again.");
 }
@@ -184,23 +150,25 @@ public ResponseEntity<String> changePassword(
 
     @PostMapping("/logout")
     public ResponseEntity<String> logout(@Valid @RequestBody RefreshTokenRequest request) {
-        refreshTokenService.revokeRefreshToken(request.getRefreshToken());
+        // Révoquer aussi les access tokens encore valides de l'utilisateur
+        refreshTokenService.revokeRefreshToken(request.getRefreshToken())
+                .ifPresent(user -> accessTokenRevocationService.revokeAll(user.getId()));
         return ResponseEntity.ok("Logged out successfully");
     }
 
     @PostMapping("/refresh")
     public ResponseEntity<AuthResponse> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
-        // 1. Vérifier le refresh token
-        RefreshToken refreshToken = refreshTokenService.verifyRefreshToken(request.getRefreshToken());
+        // 1. Vérifier le refresh token et l'échanger contre un nouveau (rotation)
+        RefreshToken refreshToken = refreshTokenService.rotateRefreshToken(request.getRefreshToken());
         User user = refreshToken.getUser();
 
         // 2. Générer un nouveau access token
         String accessToken = jwtService.generateToken(toUserDetails(user), false);
 
-        // 3. Retourner les tokens (même refresh token)
+        // 3. Retourner les tokens (l'ancien refresh token n'est plus utilisable)
         return ResponseEntity.ok(AuthResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(refreshToken.getToken()) // ← Même refresh token
+                .refreshToken(refreshToken.getToken()) // ← Nouveau refresh token
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .tokenType("Bearer")
@@ -209,10 +177,15 @@ public ResponseEntity<String> changePassword(
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        // 1. Vérifier si le compte est bloqué
-        if (loginAttemptService.isBlocked(request.getUsername())) {
-            long remainingMinutes = loginAttemptService.getRemainingBlockTime(request.getUsername());
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest) {
+        // Adresse de la connexion (X-Forwarded-For n'est pas fiable sans proxy de confiance)
+        String clientIp = httpRequest.getRemoteAddr();
+
+        // 1. Vérifier si le compte ou l'adresse IP est bloqué
+        if (loginAttemptService.isBlocked(request.getUsername()) || loginAttemptService.isIpBlocked(clientIp)) {
+            long remainingMinutes = Math.max(loginAttemptService.getRemainingBlockTime(request.getUsername()),
+                    loginAttemptService.getRemainingIpBlockTime(clientIp));
             throw new AccountBlockedException(
                     "Account temporarily blocked due to too many failed login attempts. " +
                             "Try again in " + remainingMinutes + " minutes.");
@@ -253,7 +226,7 @@ public ResponseEntity<String> changePassword(
 
         } catch (BadCredentialsException ex) {
             // 6. Login échoué → incrémenter tentatives
-            loginAttemptService.loginFailed(request.getUsername());
+            loginAttemptService.loginFailed(request.getUsername(), clientIp);
             int remaining = loginAttemptService.getRemainingAttempts(request.getUsername());
 
             throw new InvalidDataException(
@@ -262,12 +235,6 @@ public ResponseEntity<String> changePassword(
     }
 
     private UserDetails toUserDetails(User user) {
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPassword())
-                .authorities(user.getRoles().stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList()))
-                .build();
+        return JwtUserDetails.from(user);
     }
 }
@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -17,6 +18,7 @@ import com.exercice1.security.dto.RoleUpdateRequest;
 import com.exercice1.security.dto.UserResponse;
 import com.exercice1.security.model.User;
 import com.exercice1.security.repository.UserRepository;
+import com.exercice1.security.security.BoundedPasswordEncoder;
 import com.exercice1.security.service.UserService;
 
 import jakarta.validation.Valid;
@@ -28,6 +30,7 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
     private final UserRepository userRepository;
     private final UserService userService;
+    private final PasswordEncoder passwordEncoder;
 
     /**
      * Liste tous les utilisateurs (ADMIN seulement)
@@ -60,6 +63,18 @@ public class UserController {
         return ResponseEntity.ok(userService.updateUserRoles(id, request));
     }
     
+    /**
+     * État du pool de hachage des mots de passe : file d'attente, refus (ADMIN seulement)
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/password-hashing/stats")
+    public ResponseEntity<BoundedPasswordEncoder.Stats> getPasswordHashingStats() {
+        if (passwordEncoder instanceof BoundedPasswordEncoder bounded) {
+            return ResponseEntity.ok(bounded.stats());
+        }
+        return ResponseEntity.notFound().build();
+    }
+    
     /**
      * Supprimer un utilisateur (ADMIN seulement)
      */
@@ -0,0 +1,43 @@
+package com.exercice1.security.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Échecs de login partagés entre les instances (login.attempts.store=database).
+ * Les dates sont en millisecondes epoch ; les index servent la purge et la synchronisation des blocages.
+ */
+@Entity
+@Table(name = "login_attempts", indexes = {
+        @Index(name = "idx_login_attempts_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_login_attempts_blocked_until", columnList = "blocked_until")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginAttempt {
+
+    // "user:<username>" ou "ip:<adresse>"
+    @Id
+    @Column(name = "attempt_key", length = 320)
+    private String attemptKey;
+
+    @Column(nullable = false)
+    private int failures;
+
+    @Column(name = "window_start", nullable = false)
+    private long windowStart;
+
+    @Column(name = "blocked_until", nullable = false)
+    private long blockedUntil;
+
+    // Date à partir de laquelle la ligne ne sert plus (fin de fenêtre ou de blocage)
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+}
@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_family_revoked", columnList = "family_id, revoked"),
+    @Index(name = "idx_refresh_tokens_expiry", columnList = "expiry_date")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,9 +23,17 @@ public class RefreshToken {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;                  // ← L'utilisateur propriétaire
     
-    private String token;                // ← UUID aléatoire
+    @Transient
+    private String token;                // ← Valeur en clair, connue seulement à l'émission
     
-    private Instant expiryDate;          // ← Date d'expiration
+    @Column(name = "token_hash", length = 64, nullable = false, unique = true)
+    private String tokenHash;            // ← SHA-256 (hex) du token : seule valeur stockée
     
-    private boolean revoked;             // ← Si révoqué (logout)
-}
\ No newline at end of file
+    @Column(name = "family_id", length = 36, nullable = false)
+    private String familyId;             // ← Commun à tous les tokens issus d'un même login
+    
+    @Column(name = "expiry_date")
+    private Instant expiryDate;          // ← Date d'expiration (celle de la famille)
+    
+    private boolean revoked;             // ← Si révoqué (logout, rotation)
+}
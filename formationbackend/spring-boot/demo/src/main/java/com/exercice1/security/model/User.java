@@ -15,6 +15,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -23,7 +24,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_tokens_not_before", columnList = "tokens_not_before"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -53,6 +54,15 @@ public class User {
     @Builder.Default
     private Set<String> roles = new HashSet<>();
     
+    // Incrémenté à chaque révocation (mot de passe, rôles) : invalide les access tokens déjà émis
+    @Column(nullable = false)
+    @Builder.Default
+    private long tokenVersion = 0L;
+
+    // Epoch (ms, à la seconde) avant laquelle tous les access tokens de l'utilisateur sont révoqués
+    @Column(name = "tokens_not_before")
+    private Long tokensNotBefore;
+
    private String verificationToken;
     
     private LocalDateTime verificationTokenExpiry;
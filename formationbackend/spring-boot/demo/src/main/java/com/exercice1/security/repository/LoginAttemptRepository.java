@@ -0,0 +1,48 @@
+package com.exercice1.security.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.exercice1.security.model.LoginAttempt;
+
+public interface LoginAttemptRepository extends JpaRepository<LoginAttempt, String> {
+
+    // Échec dans la fenêtre courante : +1 ; fenêtre écoulée : nouvelle fenêtre à 1.
+    // Chaque expression ne lit que des colonnes qu'elle précède (MySQL évalue les SET de gauche à droite)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE LoginAttempt a SET "
+            + "a.failures = CASE WHEN a.windowStart > :windowFloor THEN a.failures + 1 ELSE 1 END, "
+            + "a.windowStart = CASE WHEN a.windowStart > :windowFloor THEN a.windowStart ELSE :now END, "
+            + "a.expiresAt = CASE WHEN a.expiresAt > :windowEnd THEN a.expiresAt ELSE :windowEnd END "
+            + "WHERE a.attemptKey = :key")
+    int fail(@Param("key") String key, @Param("now") long now, @Param("windowFloor") long windowFloor,
+            @Param("windowEnd") long windowEnd);
+
+    @Modifying
+    @Query("INSERT INTO LoginAttempt (attemptKey, failures, windowStart, blockedUntil, expiresAt) "
+            + "VALUES (:key, 1, :now, 0, :windowEnd)")
+    int insertFirstFailure(@Param("key") String key, @Param("now") long now, @Param("windowEnd") long windowEnd);
+
+    // Pose le blocage une seule fois quand la limite est atteinte
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE LoginAttempt a SET a.blockedUntil = :blockedUntil, "
+            + "a.expiresAt = CASE WHEN a.expiresAt > :blockedUntil THEN a.expiresAt ELSE :blockedUntil END "
+            + "WHERE a.attemptKey = :key AND a.failures >= :limit AND a.blockedUntil <= :now")
+    int block(@Param("key") String key, @Param("limit") int limit, @Param("now") long now,
+            @Param("blockedUntil") long blockedUntil);
+
+    @Query("SELECT a FROM LoginAttempt a WHERE a.blockedUntil > :now")
+    List<LoginAttempt> findBlocked(@Param("now") long now);
+
+    @Modifying
+    @Query("DELETE FROM LoginAttempt a WHERE a.attemptKey = :key")
+    int deleteByKey(@Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM LoginAttempt a WHERE a.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -0,0 +1,56 @@
+package com.exercice1.security.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.exercice1.security.model.OutboxEmail;
+import com.exercice1.security.model.OutboxEmail.Status;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    @Query("SELECT e.id FROM OutboxEmail e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("status") Status status, @Param("now") Instant now, Pageable pageable);
+
+    // Réservation conditionnelle : deux dispatchers ne prennent jamais le même email
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :sending, e.claimedBy = :claim, e.claimedAt = :now "
+            + "WHERE e.id IN :ids AND e.status = :pending")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claim") String claim, @Param("now") Instant now,
+            @Param("pending") Status pending, @Param("sending") Status sending);
+
+    List<OutboxEmail> findByClaimedBy(String claimedBy);
+
+    // Emails réservés par un dispatcher arrêté en cours d'envoi
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :pending, e.claimedBy = null "
+            + "WHERE e.status = :sending AND e.claimedAt < :cutoff")
+    int releaseStale(@Param("cutoff") Instant cutoff, @Param("pending") Status pending,
+            @Param("sending") Status sending);
+
+    // Les écritures de fin d'envoi ne touchent que les emails encore réservés par ce passage :
+    // un email libéré (réservation périmée) puis repris par un autre dispatcher n'est pas écrasé
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.id IN :ids AND e.claimedBy = :claim")
+    int deleteSent(@Param("ids") Collection<Long> ids, @Param("claim") String claim);
+
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :next, "
+            + "e.lastError = :error, e.claimedBy = null WHERE e.id = :id AND e.claimedBy = :claim")
+    int reschedule(@Param("id") Long id, @Param("claim") String claim, @Param("status") Status status,
+            @Param("attempts") int attempts, @Param("next") Instant next, @Param("error") String error);
+
+    // Rend un lot réservé mais non confié aux workers (file pleine)
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :pending, e.claimedBy = null "
+            + "WHERE e.claimedBy = :claim AND e.status = :sending")
+    int release(@Param("claim") String claim, @Param("pending") Status pending, @Param("sending") Status sending);
+
+    long countByStatus(Status status);
+}
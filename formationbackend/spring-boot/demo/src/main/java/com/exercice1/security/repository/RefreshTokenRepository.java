@@ -1,28 +1,59 @@
 package com.exercice1.security.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.exercice1.security.model.RefreshToken;
 import com.exercice1.security.model.User;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     
-    // Trouver un token par sa valeur
-    Optional<RefreshToken> findByToken(String token);
+    // Trouver un token par le hash de sa valeur (index unique)
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
     
     // Supprimer tous les tokens d'un utilisateur (logout all devices)
     @Modifying
     @Query("DELETE FROM RefreshToken rt WHERE rt.user = :user")
     void deleteByUser(User user);
     
-    // Nettoyer les tokens expirés (tâche périodique)
+    // Révoquer tous les tokens d'un utilisateur (changement de mot de passe)
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiryDate < CURRENT_TIMESTAMP")
-    void deleteExpiredTokens();
-
-    Optional<RefreshToken> findByUser(User user);
-}
\ No newline at end of file
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.user = :user AND rt.revoked = false")
+    int revokeByUser(@Param("user") User user);
+    
+    // Révoquer toute une famille (réutilisation d'un token déjà consommé)
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.familyId = :familyId AND rt.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+    
+    // Consommer un token : une seule rotation gagne si deux requêtes le présentent en même temps
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.id = :id AND rt.revoked = false")
+    int consume(@Param("id") Long id);
+    
+    // Tokens expirés, parcourus sur idx_refresh_tokens_expiry (le lot précédent est déjà supprimé)
+    @Query("SELECT rt.id FROM RefreshToken rt WHERE rt.expiryDate < :now ORDER BY rt.expiryDate")
+    List<Long> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+    
+    // Familles sans token actif, par clé sur idx_refresh_tokens_family_revoked.
+    // Les tokens consommés d'une famille encore active sont gardés pour détecter leur réutilisation.
+    @Query("SELECT rt.familyId FROM RefreshToken rt WHERE rt.familyId > :afterFamily GROUP BY rt.familyId "
+            + "HAVING SUM(CASE WHEN rt.revoked = false THEN 1 ELSE 0 END) = 0 ORDER BY rt.familyId")
+    List<String> findRevokedFamilies(@Param("afterFamily") String afterFamily, Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.familyId IN :families AND rt.revoked = true")
+    int deleteRevokedFamilies(@Param("families") Collection<String> families);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
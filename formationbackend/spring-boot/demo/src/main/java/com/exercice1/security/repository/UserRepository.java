@@ -1,8 +1,12 @@
 package com.exercice1.security.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.exercice1.security.model.User;
 
@@ -13,4 +17,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<User> findByVerificationToken(String token);
 
-}
\ No newline at end of file
+    // Version courante des tokens, sans charger l'entité ni ses rôles
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.username = :username")
+    Optional<Long> findTokenVersionByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokensNotBefore = :notBefore WHERE u.id = :id")
+    int revokeTokensBefore(@Param("id") Long id, @Param("notBefore") long notBefore);
+
+    // Ré-hachage après login : ne remplace que le hash vérifié (pas un mot de passe changé entre-temps)
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.username = :username AND u.password = :oldPassword")
+    int upgradePassword(@Param("username") String username, @Param("oldPassword") String oldPassword,
+            @Param("newPassword") String newPassword);
+
+    // Révocations encore utiles : un token émis avant "cutoff" a forcément expiré
+    @Query("SELECT u.id, u.tokensNotBefore FROM User u WHERE u.tokensNotBefore > :cutoff")
+    List<Object[]> findTokenRevocations(@Param("cutoff") long cutoff);
+}
@@ -0,0 +1,110 @@
+package com.exercice1.security.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.exercice1.security.exception.HashingCapacityExceededException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exécute le hachage des mots de passe (BCrypt, coûteux en CPU) sur un pool dédié et borné.
+ * Les threads de requête attendent le résultat sans consommer de CPU ; quand la file est pleine,
+ * le hachage est refusé immédiatement (HashingCapacityExceededException, réponse 429)
+ * au lieu d'accaparer les threads du serveur au détriment des autres endpoints.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * Instantané de l'état du pool de hachage
+     */
+    public record Stats(int threads, int active, int queued, int queueCapacity, long completed, long rejected) {
+    }
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long waitTimeoutMillis;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long waitTimeoutMillis) {
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Simple lecture du préfixe : pas besoin du pool
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public Stats stats() {
+        return new Stats(executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+                queueCapacity, executor.getCompletedTaskCount(), rejected.get());
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            throw saturated();
+        }
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            throw saturated();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hachage du mot de passe interrompu", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Échec du hachage du mot de passe", ex.getCause());
+        }
+    }
+
+    private HashingCapacityExceededException saturated() {
+        long count = rejected.incrementAndGet();
+        log.warn("Pool de hachage saturé ({} refus au total, file {}/{})", count, executor.getQueue().size(), queueCapacity);
+        return new HashingCapacityExceededException("Serveur d'authentification saturé, veuillez réessayer");
+    }
+}
@@ -0,0 +1,13 @@
+package com.exercice1.security.security;
+
+import com.exercice1.security.model.OutboxEmail;
+
+/**
+ * Email prêt à être remis au transport
+ */
+public record EmailMessage(Long id, String to, String subject, String body) {
+
+    public static EmailMessage of(OutboxEmail email) {
+        return new EmailMessage(email.getId(), email.getRecipient(), email.getSubject(), email.getBody());
+    }
+}
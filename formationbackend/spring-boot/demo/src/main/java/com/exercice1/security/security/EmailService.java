@@ -1,51 +1,73 @@
 package com.exercice1.security.security;
 
+import java.time.Instant;
+
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.exercice1.security.model.OutboxEmail;
+import com.exercice1.security.repository.OutboxEmailRepository;
+import com.exercice1.security.service.EmailOutboxDispatcher;
 
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 
+/**
+ * Prépare les emails et les dépose dans l'outbox, dans la transaction de l'appelant :
+ * la requête n'attend pas la remise, et un email n'est envoyé que si l'action est validée.
+ * L'envoi réel est fait par EmailOutboxDispatcher via un EmailTransport.
+ */
 @Service
-@Slf4j
+@RequiredArgsConstructor
 public class EmailService {
-    
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+
     /**
-     * Simule l'envoi d'un email de vérification
-     * En production : utiliser JavaMailSender ou SendGrid/Mailgun
+     * Met en file l'email de vérification
      */
+    @Transactional
     public void sendVerificationEmail(String to, String token) {
         String verificationLink = "http://localhost:8080/api/auth/verify/" + token;
-        
-        log.info("╔════════════════════════════════════════╗");
-        log.info("║     EMAIL DE VÉRIFICATION (SIMULATION)      ║");
-        log.info("╠════════════════════════════════════════╣");
-        log.info("║ To: {}", to);
-        log.info("║ Subject: Vérifiez votre adresse email");
-        log.info("║ ");
-        log.info("║ Bonjour,");
-        log.info("║ ");
-        log.info("║ Cliquez sur le lien pour vérifier votre email :");
-        log.info("║ {}", verificationLink);
-        log.info("║ ");
-        log.info("║ Ce lien expire dans 24 heures.");
-        log.info("╚════════════════════════════════════════╝");
+
+        enqueue(to, "Vérifiez votre adresse email", """
+                Bonjour,
+
+                Cliquez sur le lien pour vérifier votre email :
+                %s
+
+                Ce lien expire dans 24 heures.""".formatted(verificationLink));
     }
-    
+
     /**
-     * Simule l'envoi d'un email de notification de changement de password
+     * Met en file l'email de notification de changement de password
      */
+    @Transactional
     public void sendPasswordChangedEmail(String to, String username) {
-        log.info("╔════════════════════════════════════════╗");
-        log.info("║   MOT DE PASSE MODIFIÉ (SIMULATION)    ║");
-        log.info("╠════════════════════════════════════════╣");
-        log.info("║ To: {}", to);
-        log.info("║ Subject: Votre mot de passe a été modifié");
-        log.info("║ ");
-        log.info("║ Bonjour {},", username);
-        log.info("║ ");
-        log.info("║ Votre mot de passe a été modifié avec succès.");
-        log.info("║ ");
-        log.info("║ Si vous n'êtes pas à l'origine de ce changement,");
-        log.info("║ contactez immédiatement le support.");
-        log.info("╚════════════════════════════════════════╝");
+        enqueue(to, "Votre mot de passe a été modifié", """
+                Bonjour %s,
+
+                Votre mot de passe a été modifié avec succès.
+
+                Si vous n'êtes pas à l'origine de ce changement,
+                contactez immédiatement le support.""".formatted(username));
+    }
+
+    private void enqueue(String to, String subject, String body) {
+        outboxEmailRepository.save(OutboxEmail.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(body)
+                .nextAttemptAt(Instant.now())
+                .build());
+        // Réveille le dispatcher une fois l'email visible en base
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                emailOutboxDispatcher.wakeUp();
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package com.exercice1.security.security;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moyen de remise des emails (SMTP, API d'un fournisseur, simulation...).
+ * Reçoit des lots pour qu'une implémentation puisse réutiliser sa connexion.
+ */
+public interface EmailTransport {
+
+    /**
+     * Envoie le lot et retourne les emails en échec (id -> cause) ; une exception fait échouer tout le lot
+     */
+    Map<Long, String> send(List<EmailMessage> batch);
+}
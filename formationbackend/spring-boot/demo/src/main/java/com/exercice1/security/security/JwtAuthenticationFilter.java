@@ -2,6 +2,7 @@ package com.exercice1.security.security;
 
 import java.io.IOException;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,6 +11,9 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.exercice1.security.service.AccessTokenRevocationService;
+import com.exercice1.security.service.TokenVersionService;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +26,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenVersionService tokenVersionService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+
+    // true : authentification construite depuis les claims, sans charger l'utilisateur
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
     
     @Override
     protected void doFilterInternal(
@@ -38,14 +48,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         
         final String jwt = authHeader.substring(7);
-        final String username = jwtService.extractUsername(jwt);
+        // Un seul parsing : signature, expiration et claims réutilisés ensuite
+        final JwtService.ParsedToken token = jwtService.parse(jwt);
+        // Révocation en mémoire (logout, mot de passe changé) : aucune requête en base
+        final boolean revoked = token != null
+                && accessTokenRevocationService.isRevoked(token.userId(), token.issuedAt());
+        final String username = token != null && !revoked ? token.username() : null;
         
         // 2. Si username existe et utilisateur pas déjà authentifié
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = resolveUser(token);
             
             // 3. Valider le token
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null && token.isValidFor(userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = 
                     new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -61,4 +76,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails resolveUser(JwtService.ParsedToken token) {
+        if (!stateless) {
+            return userDetailsService.loadUserByUsername(token.username());
+        }
+        // Révocation : la version du token doit être la version courante (cache court)
+        if (!tokenVersionService.isCurrent(token.username(), token.tokenVersion())) {
+            return null;
+        }
+        return token.toUserDetails();
+    }
+}
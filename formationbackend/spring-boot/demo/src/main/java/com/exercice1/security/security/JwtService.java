@@ -2,6 +2,7 @@ package com.exercice1.security.security;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -14,13 +15,20 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class JwtService {
 
+    static final String ROLES_CLAIM = "roles";
+    static final String VERSION_CLAIM = "ver";
+    static final String USER_ID_CLAIM = "uid";
+
     @Value("${jwt.expiration.rememberMe:604800000}") // 7 jours
     private long expirationRememberMe;
 
@@ -30,9 +38,56 @@ public class JwtService {
     @Value("${jwt.expiration}")
     private long expiration; // Durée validité (ex: 86400000 = 24h)
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Clé et parseur construits une seule fois : le parseur JJWT est immuable et thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * Token dont la signature et l'expiration ont été vérifiées
+     */
+    public record ParsedToken(Claims claims) {
+
+        public String username() {
+            return claims.getSubject();
+        }
+
+        public boolean isValidFor(UserDetails userDetails) {
+            return username() != null && username().equals(userDetails.getUsername());
+        }
+
+        // Absent des tokens émis sans JwtUserDetails
+        public Long userId() {
+            Number userId = claims.get(USER_ID_CLAIM, Number.class);
+            return userId != null ? userId.longValue() : null;
+        }
+
+        public long issuedAt() {
+            return claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+        }
+
+        // Tokens émis avant l'introduction de la version : version 0
+        public long tokenVersion() {
+            Number version = claims.get(VERSION_CLAIM, Number.class);
+            return version != null ? version.longValue() : 0L;
+        }
+
+        /**
+         * Utilisateur reconstruit depuis les claims vérifiés, sans accès à la base
+         */
+        public JwtUserDetails toUserDetails() {
+            List<?> roles = claims.get(ROLES_CLAIM, List.class);
+            List<String> names = roles == null ? List.of()
+                    : roles.stream().map(String::valueOf).toList();
+            return new JwtUserDetails(userId(), username(), null, JwtUserDetails.authorities(names), tokenVersion());
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     // Méthode 1 : Sans remember me (compatibilité)
@@ -43,9 +98,15 @@ public class JwtService {
     // Méthode 2 : Avec remember me (surcharge)
     public String generateToken(UserDetails userDetails, boolean rememberMe) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities().stream()
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList()));
+        if (userDetails instanceof JwtUserDetails jwtUser) {
+            claims.put(VERSION_CLAIM, jwtUser.getTokenVersion());
+            if (jwtUser.getUserId() != null) {
+                claims.put(USER_ID_CLAIM, jwtUser.getUserId());
+            }
+        }
 
         // Choisir la durée selon rememberMe
         long expirationTime = rememberMe ? expirationRememberMe : expiration;
@@ -55,7 +116,7 @@ public class JwtService {
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -65,35 +126,31 @@ public class JwtService {
     }
 
 
+    /**
+     * Vérifie la signature et l'expiration en un seul parsing.
+     * Retourne null si le token est invalide, expiré ou mal formé.
+     */
+    public ParsedToken parse(String token) {
+        try {
+            return new ParsedToken(parser.parseSignedClaims(token).getPayload());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     // Extraire le username du token
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
-    // Vérifier si le token est valide
+    // Vérifier si le token est valide (le parseur rejette déjà les tokens expirés)
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        ParsedToken parsed = parse(token);
+        return parsed != null && parsed.isValidFor(userDetails);
     }
 
     private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parser.parseSignedClaims(token).getPayload();
         return claimsResolver.apply(claims);
     }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
 }
\ No newline at end of file
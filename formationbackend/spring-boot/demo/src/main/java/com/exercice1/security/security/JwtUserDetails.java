@@ -0,0 +1,57 @@
+package com.exercice1.security.security;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.exercice1.security.model.User;
+
+import lombok.Value;
+
+/**
+ * Utilisateur authentifié reconstruit à partir des claims du token (sans mot de passe),
+ * ou construit depuis l'entité au moment d'émettre le token.
+ */
+@Value
+public class JwtUserDetails implements UserDetails {
+
+    Long userId;
+    String username;
+    String password;
+    Collection<? extends GrantedAuthority> authorities;
+    long tokenVersion;
+
+    public static JwtUserDetails from(User user) {
+        return new JwtUserDetails(user.getId(), user.getUsername(), user.getPassword(), authorities(user.getRoles()),
+                user.getTokenVersion());
+    }
+
+    public static List<SimpleGrantedAuthority> authorities(Collection<String> roles) {
+        return roles.stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package com.exercice1.security.security;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Simule l'envoi en écrivant les emails dans les logs
+ * En production : implémenter EmailTransport avec JavaMailSender ou SendGrid/Mailgun
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "log", matchIfMissing = true)
+@Slf4j
+public class LoggingEmailTransport implements EmailTransport {
+
+    @Override
+    public Map<Long, String> send(List<EmailMessage> batch) {
+        for (EmailMessage message : batch) {
+            log.info("╔════════════════════════════════════════╗");
+            log.info("║           EMAIL (SIMULATION)           ║");
+            log.info("╠════════════════════════════════════════╣");
+            log.info("║ To: {}", message.to());
+            log.info("║ Subject: {}", message.subject());
+            log.info("║ ");
+            message.body().lines().forEach(line -> log.info("║ {}", line));
+            log.info("╚════════════════════════════════════════╝");
+        }
+        return Map.of();
+    }
+}
@@ -0,0 +1,80 @@
+package com.exercice1.security.security;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Fabrique des encodeurs de mots de passe.
+ * Les hashes sont préfixés par leur algorithme ({bcrypt}, {argon2}) ; un hash sans préfixe
+ * (comptes créés avant) est lu comme du BCrypt. Un hash qui n'a pas l'algorithme ou le coût
+ * cible est signalé par upgradeEncoding et ré-haché au prochain login réussi.
+ */
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+
+    private PasswordEncoders() {
+    }
+
+    /**
+     * Argon2 nécessite BouncyCastle sur le classpath
+     */
+    public static boolean isArgon2Available() {
+        return ClassUtils.isPresent("org.bouncycastle.crypto.params.Argon2Parameters",
+                PasswordEncoders.class.getClassLoader());
+    }
+
+    /**
+     * BCrypt dont upgradeEncoding signale tout coût différent de la cible,
+     * y compris plus élevé (coût abaissé pour tenir le temps de réponse du login)
+     */
+    public static PasswordEncoder bcrypt(int strength) {
+        return new BCryptPasswordEncoder(strength) {
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                if (encodedPassword == null) {
+                    return false;
+                }
+                Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+                return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+            }
+        };
+    }
+
+    public static PasswordEncoder argon2(int memoryKb, int iterations, int parallelism) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, parallelism, memoryKb, iterations);
+    }
+
+    /**
+     * Encodeur délégant : encode avec "algorithm", vérifie tous les formats connus
+     */
+    public static PasswordEncoder delegating(String algorithm, int bcryptStrength,
+            int argon2MemoryKb, int argon2Iterations, int argon2Parallelism) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt(bcryptStrength));
+        if (isArgon2Available()) {
+            encoders.put(ARGON2, argon2(argon2MemoryKb, argon2Iterations, argon2Parallelism));
+        }
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Algorithme de hachage indisponible : " + algorithm
+                    + (ARGON2.equals(algorithm) ? " (BouncyCastle absent du classpath)" : ""));
+        }
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes historiques sans préfixe
+        delegating.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+        return delegating;
+    }
+}
@@ -0,0 +1,171 @@
+package com.exercice1.security.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.exercice1.security.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Révocation des access tokens par utilisateur ("not before") : tout token émis avant
+ * la date de révocation est refusé par le filtre JWT. Consultée à chaque requête,
+ * la table est en mémoire (userId -> epoch ms, sans boxing) ; une révocation est persistée
+ * sur l'utilisateur et la table est reconstruite au démarrage.
+ * Une révocation va d'abord dans une petite table concurrente (écriture O(1)) ;
+ * les révocations récentes sont fusionnées par lots dans la table publiée,
+ * une copie pour toutes au lieu d'une copie par logout.
+ * Une entrée disparaît quand tous les tokens qu'elle vise ont expiré.
+ */
+@Service
+@Slf4j
+public class AccessTokenRevocationService {
+
+    private final UserRepository userRepository;
+    // Durée de vie maximale d'un access token (remember me compris)
+    private final long maxTokenLifetime;
+
+    private static final int MIN_MERGE_BATCH = 64;
+
+    private volatile LongLongMap notBefore = LongLongMap.EMPTY;
+
+    // Révocations pas encore fusionnées dans notBefore (lues en plus de la table)
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    // Construction et publication des tables : une seule à la fois
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    public AccessTokenRevocationService(UserRepository userRepository,
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.expiration.rememberMe:604800000}") long expirationRememberMe) {
+        this.userRepository = userRepository;
+        this.maxTokenLifetime = Math.max(expiration, expirationRememberMe);
+    }
+
+    /**
+     * Vrai si le token de cet utilisateur, émis à issuedAt (epoch ms), a été révoqué.
+     * Les tokens sans identifiant utilisateur ne sont pas concernés.
+     */
+    public boolean isRevoked(Long userId, long issuedAt) {
+        if (userId == null) {
+            return false;
+        }
+        Long recent = pending.isEmpty() ? null : pending.get(userId);
+        if (recent != null && issuedAt < recent) {
+            return true;
+        }
+        // Lue après pending : une révocation déjà retirée de pending est dans la table publiée
+        return issuedAt < notBefore.get(userId, Long.MIN_VALUE);
+    }
+
+    /**
+     * Révoque tous les access tokens déjà émis pour l'utilisateur (logout, mot de passe changé).
+     * La date est tronquée à la seconde, précision du claim "iat" : un token obtenu juste après reste valide.
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        long now = TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        userRepository.revokeTokensBefore(userId, now);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(userId, now);
+                }
+            });
+        } else {
+            publish(userId, now);
+        }
+    }
+
+    /**
+     * Recharge les révocations encore actives depuis la base
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // Lecture sous le verrou : une fusion concurrente ne peut pas être écrasée par un instantané plus ancien
+        publishLock.lock();
+        try {
+            List<Object[]> rows = userRepository.findTokenRevocations(System.currentTimeMillis() - maxTokenLifetime);
+            long[] userIds = new long[rows.size()];
+            long[] revokedAt = new long[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                userIds[i] = (Long) rows.get(i)[0];
+                revokedAt[i] = (Long) rows.get(i)[1];
+            }
+            notBefore = LongLongMap.of(userIds, revokedAt);
+        } finally {
+            publishLock.unlock();
+        }
+        log.info("Révocations d'access tokens chargées : {}", notBefore.size());
+    }
+
+    /**
+     * Retire les révocations dont tous les tokens visés ont expiré
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval:600000}")
+    public void prune() {
+        long cutoff = System.currentTimeMillis() - maxTokenLifetime;
+        publishLock.lock();
+        try {
+            merge();
+            notBefore = notBefore.retainValues(value -> value > cutoff);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    public int size() {
+        publishLock.lock();
+        try {
+            merge();
+            return notBefore.size();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // O(1) par révocation ; la fusion (O(n)) n'a lieu qu'une fois par lot de n/8 révocations
+    private void publish(long userId, long revokedAt) {
+        pending.merge(userId, revokedAt, Math::max);
+        if (pending.size() >= Math.max(MIN_MERGE_BATCH, notBefore.size() / 8) && publishLock.tryLock()) {
+            try {
+                merge();
+            } finally {
+                publishLock.unlock();
+            }
+        }
+    }
+
+    // Sous publishLock : publie la table fusionnée avant de vider pending, une lecture voit toujours la révocation
+    private void merge() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> batch = new HashMap<>(pending);
+        long[] userIds = new long[batch.size()];
+        long[] revokedAt = new long[batch.size()];
+        int i = 0;
+        for (Map.Entry<Long, Long> entry : batch.entrySet()) {
+            userIds[i] = entry.getKey();
+            revokedAt[i] = Math.max(entry.getValue(), notBefore.get(entry.getKey(), Long.MIN_VALUE));
+            i++;
+        }
+        notBefore = notBefore.withAll(userIds, revokedAt);
+        // Une révocation plus récente arrivée entre-temps reste en attente
+        batch.forEach(pending::remove);
+    }
+}
@@ -0,0 +1,50 @@
+package com.exercice1.security.service;
+
+/**
+ * Stockage des échecs de login par clé (username ou adresse IP).
+ * Implémentations : {@link InMemoryAttemptStore} (une JVM) et {@link DatabaseAttemptStore}
+ * (partagée entre les instances), choisies par la propriété login.attempts.store.
+ */
+public interface AttemptStore {
+
+    /**
+     * Règle appliquée à une famille de clés : nombre d'échecs tolérés dans la fenêtre, durée du blocage
+     */
+    record AttemptPolicy(int limit, long windowMillis, long blockMillis) {
+    }
+
+    /**
+     * Échecs comptés dans la fenêtre courante et fin du blocage (0 si aucun)
+     */
+    record AttemptState(int failures, long blockedUntil) {
+
+        public static final AttemptState NONE = new AttemptState(0, 0L);
+
+        public boolean isBlocked(long now) {
+            return blockedUntil > now;
+        }
+    }
+
+    /**
+     * Enregistre un échec de manière atomique et bloque la clé si la limite est atteinte
+     */
+    AttemptState recordFailure(String key, AttemptPolicy policy, long now);
+
+    /**
+     * État courant de la clé ({@link AttemptState#NONE} si inconnue ou expirée)
+     */
+    AttemptState get(String key, AttemptPolicy policy, long now);
+
+    /**
+     * Fin du blocage de la clé, 0 si elle n'est pas bloquée. Chemin appelé à chaque login :
+     * une implémentation distante peut répondre depuis une copie locale légèrement en retard.
+     */
+    long blockedUntil(String key, long now);
+
+    void clear(String key);
+
+    /**
+     * Retire les entrées sans échec récent ni blocage en cours, retourne leur nombre
+     */
+    int purgeExpired(long now);
+}
@@ -0,0 +1,26 @@
+package com.exercice1.security.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Éviction de cache immédiate, refaite après le commit de la transaction courante :
+ * une lecture concurrente a pu remettre en cache l'ancienne valeur avant le commit.
+ */
+final class CacheEviction {
+
+    private CacheEviction() {
+    }
+
+    static void run(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
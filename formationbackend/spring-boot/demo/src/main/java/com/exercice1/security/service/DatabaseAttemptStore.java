@@ -0,0 +1,125 @@
+package com.exercice1.security.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.exercice1.security.model.LoginAttempt;
+import com.exercice1.security.repository.LoginAttemptRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Échecs de login stockés en base, partagés par toutes les instances et conservés au redémarrage.
+ * Chaque échec est un UPDATE relatif (ou un INSERT pour le premier), jamais un read-modify-write.
+ * La vérification faite à chaque login lit une copie locale des blocages en cours,
+ * resynchronisée toutes les login.attempts.sync-interval ms : pas d'aller-retour base par login.
+ * Un login réussi n'efface la ligne que si cette instance y a compté un échec ; les lignes
+ * des autres instances expirent d'elles-mêmes (purgeExpired).
+ * La fenêtre est fixe (démarrée au premier échec) et non glissante comme en mémoire.
+ */
+@Component
+@ConditionalOnProperty(name = "login.attempts.store", havingValue = "database")
+@Slf4j
+public class DatabaseAttemptStore implements AttemptStore {
+
+    private final LoginAttemptRepository loginAttemptRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // clé -> fin du blocage, pour toutes les instances
+    private final Map<String, Long> blocks = new ConcurrentHashMap<>();
+
+    // clé -> expiration de la ligne, pour les échecs comptés par cette instance
+    private final Map<String, Long> failing = new ConcurrentHashMap<>();
+
+    public DatabaseAttemptStore(LoginAttemptRepository loginAttemptRepository,
+            PlatformTransactionManager transactionManager) {
+        this.loginAttemptRepository = loginAttemptRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public AttemptState recordFailure(String key, AttemptPolicy policy, long now) {
+        long windowFloor = now - policy.windowMillis();
+        long windowEnd = now + policy.windowMillis();
+        failing.merge(key, windowEnd, Math::max);
+        // Transactions courtes et séparées : l'INSERT ne doit pas attendre un verrou pris par l'UPDATE
+        Integer updated = transactionTemplate.execute(status ->
+                loginAttemptRepository.fail(key, now, windowFloor, windowEnd));
+        if (updated == null || updated == 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        loginAttemptRepository.insertFirstFailure(key, now, windowEnd));
+            } catch (DataIntegrityViolationException ex) {
+                // Une autre instance vient de créer la ligne
+                transactionTemplate.executeWithoutResult(status ->
+                        loginAttemptRepository.fail(key, now, windowFloor, windowEnd));
+            }
+        }
+        AttemptState state = transactionTemplate.execute(status -> {
+            loginAttemptRepository.block(key, policy.limit(), now, now + policy.blockMillis());
+            return loginAttemptRepository.findById(key)
+                    .map(attempt -> state(attempt, policy, now))
+                    .orElse(AttemptState.NONE);
+        });
+        if (state.isBlocked(now)) {
+            blocks.put(key, state.blockedUntil());
+            failing.merge(key, state.blockedUntil(), Math::max);
+        }
+        return state;
+    }
+
+    @Override
+    public AttemptState get(String key, AttemptPolicy policy, long now) {
+        return loginAttemptRepository.findById(key)
+                .map(attempt -> state(attempt, policy, now))
+                .orElse(AttemptState.NONE);
+    }
+
+    @Override
+    public long blockedUntil(String key, long now) {
+        Long until = blocks.get(key);
+        return until != null && until > now ? until : 0L;
+    }
+
+    @Override
+    public void clear(String key) {
+        blocks.remove(key);
+        // Aucun échec compté ici : pas de DELETE (cas de presque tous les logins)
+        if (failing.remove(key) != null) {
+            transactionTemplate.executeWithoutResult(status -> loginAttemptRepository.deleteByKey(key));
+        }
+    }
+
+    @Override
+    public int purgeExpired(long now) {
+        failing.values().removeIf(expiresAt -> expiresAt <= now);
+        Integer removed = transactionTemplate.execute(status -> loginAttemptRepository.deleteExpired(now));
+        return removed == null ? 0 : removed;
+    }
+
+    /**
+     * Recharge les blocages posés par toutes les instances (index sur blocked_until)
+     */
+    @Scheduled(fixedDelayString = "${login.attempts.sync-interval:5000}")
+    public void syncBlocks() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> current = loginAttemptRepository.findBlocked(now).stream()
+                .collect(Collectors.toMap(LoginAttempt::getAttemptKey, LoginAttempt::getBlockedUntil));
+        blocks.values().removeIf(until -> until <= now);
+        blocks.putAll(current);
+        log.trace("Blocages de login synchronisés : {}", current.size());
+    }
+
+    private static AttemptState state(LoginAttempt attempt, AttemptPolicy policy, long now) {
+        int failures = attempt.getWindowStart() > now - policy.windowMillis() ? attempt.getFailures() : 0;
+        return new AttemptState(failures, attempt.getBlockedUntil());
+    }
+}
@@ -0,0 +1,209 @@
+package com.exercice1.security.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.exercice1.security.model.OutboxEmail;
+import com.exercice1.security.model.OutboxEmail.Status;
+import com.exercice1.security.repository.OutboxEmailRepository;
+import com.exercice1.security.security.EmailMessage;
+import com.exercice1.security.security.EmailTransport;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remet les emails de l'outbox au transport, hors des threads de requête.
+ * Chaque passage réserve des lots d'emails dus (UPDATE conditionnel, sûr entre instances)
+ * et les confie à un pool de workers. Un échec est replanifié avec un backoff exponentiel,
+ * jusqu'à email.outbox.max-attempts tentatives. La file des workers est bornée et les réveils
+ * sont regroupés : un lot réservé n'attend jamais assez longtemps pour être repris par un autre.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final long STALE_CLAIM_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final EmailTransport emailTransport;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    // Un seul passage de réservation à la fois sur cette instance
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+
+    // Un seul réveil en attente à la fois, quel que soit le nombre d'emails mis en file
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    public EmailOutboxDispatcher(OutboxEmailRepository outboxEmailRepository, EmailTransport emailTransport,
+            PlatformTransactionManager transactionManager,
+            @Value("${email.outbox.workers:2}") int workerCount,
+            @Value("${email.outbox.queue-capacity:4}") int queueCapacity,
+            @Value("${email.outbox.batch-size:50}") int batchSize,
+            @Value("${email.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${email.outbox.backoff-ms:2000}") long backoffMillis) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.emailTransport = emailTransport;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(workerCount);
+        this.workers.setMaxPoolSize(workerCount);
+        this.workers.setQueueCapacity(queueCapacity);
+        this.workers.setThreadNamePrefix("email-outbox-");
+        this.workers.initialize();
+    }
+
+    /**
+     * Déclenche un passage sans attendre le prochain poll (appelé après le commit d'un envoi)
+     */
+    public void wakeUp() {
+        if (!wakeUpPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                wakeUpPending.set(false);
+                dispatch();
+            });
+        } catch (TaskRejectedException ex) {
+            wakeUpPending.set(false);
+            log.debug("Pool d'envoi saturé, l'email partira au prochain passage");
+        }
+    }
+
+    /**
+     * Réserve les emails dus par lots et les confie aux workers
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:1000}")
+    public void dispatch() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEmailRepository.releaseStale(
+                    Instant.now().minusMillis(STALE_CLAIM_MILLIS), Status.PENDING, Status.SENDING));
+            // Pas plus de lots par passage que de workers : le reste attend le passage suivant
+            for (int i = 0; i < workers.getMaxPoolSize(); i++) {
+                String claim = UUID.randomUUID().toString();
+                List<OutboxEmail> batch = claim(claim);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    workers.execute(() -> deliver(claim, batch));
+                } catch (TaskRejectedException ex) {
+                    // File pleine : le lot est rendu tout de suite plutôt que d'attendre sa péremption
+                    transactionTemplate.executeWithoutResult(status -> outboxEmailRepository.release(claim,
+                            Status.PENDING, Status.SENDING));
+                    break;
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    /**
+     * Nombre d'emails en attente d'envoi (réservés compris)
+     */
+    public long backlog() {
+        return outboxEmailRepository.countByStatus(Status.PENDING) + outboxEmailRepository.countByStatus(Status.SENDING);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    private List<OutboxEmail> claim(String claim) {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<Long> due = outboxEmailRepository.findDueIds(Status.PENDING, now, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                return List.<OutboxEmail>of();
+            }
+            outboxEmailRepository.claim(due, claim, now, Status.PENDING, Status.SENDING);
+            return outboxEmailRepository.findByClaimedBy(claim);
+        });
+    }
+
+    private void deliver(String claim, List<OutboxEmail> batch) {
+        Map<Long, String> failures;
+        try {
+            failures = emailTransport.send(batch.stream().map(EmailMessage::of).toList());
+        } catch (RuntimeException ex) {
+            log.warn("Échec d'envoi d'un lot de {} emails : {}", batch.size(), ex.getMessage());
+            failures = new HashMap<>();
+            for (OutboxEmail email : batch) {
+                failures.put(email.getId(), String.valueOf(ex.getMessage()));
+            }
+        }
+        Map<Long, String> failed = failures;
+        List<Long> sent = new ArrayList<>();
+        List<OutboxEmail> retried = new ArrayList<>();
+        for (OutboxEmail email : batch) {
+            if (failed.containsKey(email.getId())) {
+                retried.add(reschedule(email, failed.get(email.getId())));
+            } else {
+                sent.add(email.getId());
+            }
+        }
+        int written = transactionTemplate.execute(status -> {
+            int rows = sent.isEmpty() ? 0 : outboxEmailRepository.deleteSent(sent, claim);
+            for (OutboxEmail email : retried) {
+                rows += outboxEmailRepository.reschedule(email.getId(), claim, email.getStatus(), email.getAttempts(),
+                        email.getNextAttemptAt(), email.getLastError());
+            }
+            return rows;
+        });
+        if (written < batch.size()) {
+            log.warn("{} email(s) du lot {} repris par un autre dispatcher entre-temps", batch.size() - written, claim);
+        }
+    }
+
+    private OutboxEmail reschedule(OutboxEmail email, String error) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setClaimedBy(null);
+        email.setLastError(error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (attempts >= maxAttempts) {
+            email.setStatus(Status.FAILED);
+            log.error("Email {} abandonné après {} tentatives : {}", email.getId(), attempts, error);
+            return email;
+        }
+        // Backoff exponentiel plafonné, avec une part aléatoire pour étaler les reprises
+        long ceiling = backoffMillis << Math.min(attempts - 1, 10);
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        email.setStatus(Status.PENDING);
+        email.setNextAttemptAt(Instant.now().plusMillis(delay));
+        return email;
+    }
+}
@@ -0,0 +1,195 @@
+package com.exercice1.security.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Échecs de login gardés dans la JVM, par fenêtre glissante exacte.
+ * Mémoire bornée : les clés sont réparties sur des segments LRU de capacité fixe
+ * (une attaque avec des usernames aléatoires évince les plus anciennes entrées au lieu de remplir le heap).
+ * Les clés bloquées sortent du LRU : une rafale d'usernames ne peut pas évincer le blocage
+ * d'un compte visé ; seule l'expiration (purgeExpired ou lecture) les retire.
+ */
+@Component
+@ConditionalOnProperty(name = "login.attempts.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryAttemptStore implements AttemptStore {
+
+    private static final int STRIPES = 16;
+
+    // Segments indépendants : un verrou par segment au lieu d'un verrou global
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * Échecs récents (horodatages croissants, au plus "limit") et fin de blocage éventuelle.
+     * Immuable : chaque échec produit une nouvelle fenêtre via merge.
+     */
+    private record Window(long[] failures, long windowMillis, long blockedUntil) {
+
+        static Window empty(AttemptPolicy policy) {
+            return new Window(new long[0], policy.windowMillis(), 0L);
+        }
+
+        Window fail(long now, AttemptPolicy policy) {
+            long[] recent = recent(now);
+            long[] next = Arrays.copyOf(recent, recent.length + 1);
+            next[recent.length] = now;
+            if (next.length > policy.limit()) {
+                next = Arrays.copyOfRange(next, next.length - policy.limit(), next.length);
+            }
+            long until = next.length >= policy.limit() ? now + policy.blockMillis() : blockedUntil;
+            return new Window(next, windowMillis, until);
+        }
+
+        long[] recent(long now) {
+            return Arrays.stream(failures).filter(time -> time > now - windowMillis).toArray();
+        }
+
+        boolean isExpired(long now) {
+            return blockedUntil <= now && recent(now).length == 0;
+        }
+
+        AttemptState state(long now) {
+            return new AttemptState(recent(now).length, blockedUntil);
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Window> {
+
+        private final int capacity;
+
+        // Blocages en cours, hors LRU ; chaque entrée a coûté "limit" échecs à l'attaquant
+        private final Map<String, Window> blocked = new HashMap<>();
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+            return size() > capacity;
+        }
+
+        Window lookup(String key) {
+            Window window = blocked.get(key);
+            return window != null ? window : get(key);
+        }
+
+        void store(String key, Window window, long now) {
+            if (window.blockedUntil() > now) {
+                remove(key);
+                blocked.put(key, window);
+            } else {
+                blocked.remove(key);
+                put(key, window);
+            }
+        }
+
+        void discard(String key) {
+            remove(key);
+            blocked.remove(key);
+        }
+
+        int total() {
+            return size() + blocked.size();
+        }
+    }
+
+    public InMemoryAttemptStore(@Value("${login.attempts.capacity:100000}") int capacity) {
+        int perStripe = Math.max(1, capacity / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    @Override
+    public AttemptState recordFailure(String key, AttemptPolicy policy, long now) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Window current = stripe.lookup(key);
+            Window next = (current != null ? current : Window.empty(policy)).fail(now, policy);
+            stripe.store(key, next, now);
+            return next.state(now);
+        }
+    }
+
+    @Override
+    public AttemptState get(String key, AttemptPolicy policy, long now) {
+        Window window = current(key, now);
+        return window == null ? AttemptState.NONE : window.state(now);
+    }
+
+    @Override
+    public long blockedUntil(String key, long now) {
+        Window window = current(key, now);
+        return window != null && window.blockedUntil() > now ? window.blockedUntil() : 0L;
+    }
+
+    @Override
+    public void clear(String key) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.discard(key);
+        }
+    }
+
+    @Override
+    public int purgeExpired(long now) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                int before = stripe.total();
+                stripe.values().removeIf(window -> window.isExpired(now));
+                // Blocage terminé : l'entrée retourne dans le LRU si elle a encore des échecs récents
+                for (Iterator<Map.Entry<String, Window>> it = stripe.blocked.entrySet().iterator(); it.hasNext();) {
+                    Map.Entry<String, Window> entry = it.next();
+                    if (entry.getValue().blockedUntil() <= now) {
+                        it.remove();
+                        if (!entry.getValue().isExpired(now)) {
+                            stripe.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+                removed += before - stripe.total();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Nombre de clés suivies
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.total();
+            }
+        }
+        return size;
+    }
+
+    // Fenêtre encore utile, ou null (l'entrée expirée est retirée au passage)
+    private Window current(String key, long now) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Window window = stripe.lookup(key);
+            if (window != null && window.isExpired(now)) {
+                stripe.discard(key);
+                return null;
+            }
+            return window;
+        }
+    }
+
+    private Stripe stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+}
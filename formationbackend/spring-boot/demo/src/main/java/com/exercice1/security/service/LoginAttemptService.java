@@ -1,81 +1,105 @@
 package com.exercice1.security.service;
 
-import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.exercice1.security.service.AttemptStore.AttemptPolicy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limitation des échecs de login par username et par adresse IP.
+ * L'état est délégué à un {@link AttemptStore} : en mémoire (par défaut) ou en base,
+ * partagé entre les instances (login.attempts.store=database).
+ */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class LoginAttemptService {
-    
-    private static final int MAX_ATTEMPTS = 5;
-    private static final int BLOCK_DURATION_HOURS = 1;
-    
-    // Map : username -> nombre de tentatives
-    private final Map<String, Integer> attemptsCache = new ConcurrentHashMap<>();
-    
-    // Map : username -> date de fin de blocage
-    private final Map<String, LocalDateTime> blockCache = new ConcurrentHashMap<>();
-    
+
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    private static final long BLOCK_DURATION_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final AttemptPolicy USER_POLICY = new AttemptPolicy(5, WINDOW_MILLIS, BLOCK_DURATION_MILLIS);
+    private static final AttemptPolicy IP_POLICY = new AttemptPolicy(50, WINDOW_MILLIS, BLOCK_DURATION_MILLIS);
+
+    private static final String USER_PREFIX = "user:";
+    private static final String IP_PREFIX = "ip:";
+
+    private final AttemptStore attemptStore;
+
     /**
-     * Appelé après un login réussi
+     * Appelé après un login réussi (le compteur de l'adresse IP est conservé)
      */
     public void loginSucceeded(String username) {
-        attemptsCache.remove(username);
-        blockCache.remove(username);
+        attemptStore.clear(USER_PREFIX + username);
     }
-    
+
     /**
      * Appelé après un échec de login
      */
-    public void loginFailed(String username) {
-        int attempts = attemptsCache.getOrDefault(username, 0);
-        attempts++;
-        attemptsCache.put(username, attempts);
-        
-        if (attempts >= MAX_ATTEMPTS) {
-            blockCache.put(username, LocalDateTime.now().plusHours(BLOCK_DURATION_HOURS));
+    public void loginFailed(String username, String ip) {
+        long now = System.currentTimeMillis();
+        attemptStore.recordFailure(USER_PREFIX + username, USER_POLICY, now);
+        if (ip != null) {
+            attemptStore.recordFailure(IP_PREFIX + ip, IP_POLICY, now);
         }
     }
-    
+
     /**
      * Vérifie si un utilisateur est bloqué
      */
     public boolean isBlocked(String username) {
-        if (!blockCache.containsKey(username)) {
-            return false;
-        }
-        
-        LocalDateTime blockUntil = blockCache.get(username);
-        if (LocalDateTime.now().isAfter(blockUntil)) {
-            // Le blocage est expiré
-            blockCache.remove(username);
-            attemptsCache.remove(username);
-            return false;
-        }
-        
-        return true;
+        return attemptStore.blockedUntil(USER_PREFIX + username, System.currentTimeMillis()) > 0;
     }
-    
+
+    /**
+     * Vérifie si une adresse IP est bloquée
+     */
+    public boolean isIpBlocked(String ip) {
+        return attemptStore.blockedUntil(IP_PREFIX + ip, System.currentTimeMillis()) > 0;
+    }
+
     /**
      * Nombre de tentatives restantes avant blocage
      */
     public int getRemainingAttempts(String username) {
-        int attempts = attemptsCache.getOrDefault(username, 0);
-        return Math.max(0, MAX_ATTEMPTS - attempts);
+        int attempts = attemptStore.get(USER_PREFIX + username, USER_POLICY, System.currentTimeMillis()).failures();
+        return Math.max(0, USER_POLICY.limit() - attempts);
     }
-    
+
     /**
      * Temps restant de blocage (en minutes)
      */
     public long getRemainingBlockTime(String username) {
-        if (!blockCache.containsKey(username)) {
-            return 0;
+        return remainingMinutes(USER_PREFIX + username);
+    }
+
+    /**
+     * Temps restant de blocage d'une adresse IP (en minutes)
+     */
+    public long getRemainingIpBlockTime(String ip) {
+        return remainingMinutes(IP_PREFIX + ip);
+    }
+
+    /**
+     * Retire les entrées sans échec récent ni blocage en cours
+     */
+    @Scheduled(fixedDelayString = "${login.attempts.sweep-interval:60000}")
+    public int sweep() {
+        int removed = attemptStore.purgeExpired(System.currentTimeMillis());
+        if (removed > 0) {
+            log.debug("Tentatives de login : {} entrées expirées retirées", removed);
         }
-        
-        LocalDateTime blockUntil = blockCache.get(username);
-        long minutes = java.time.Duration.between(LocalDateTime.now(), blockUntil).toMinutes();
-        return Math.max(0, minutes);
+        return removed;
+    }
+
+    private long remainingMinutes(String key) {
+        long now = System.currentTimeMillis();
+        long blockedUntil = attemptStore.blockedUntil(key, now);
+        return blockedUntil == 0 ? 0 : TimeUnit.MILLISECONDS.toMinutes(blockedUntil - now);
     }
-}
\ No newline at end of file
+}
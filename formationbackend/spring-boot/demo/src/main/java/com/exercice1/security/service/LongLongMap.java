@@ -0,0 +1,118 @@
+package com.exercice1.security.service;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Table de hachage long -> long immuable, à adressage ouvert (sondage linéaire), sans boxing.
+ * Les écritures produisent une nouvelle table : les lectures ne prennent aucun verrou.
+ * Les clés doivent être strictement positives (0 marque une case vide).
+ */
+final class LongLongMap {
+
+    static final LongLongMap EMPTY = new LongLongMap(new long[2], new long[2], 0);
+
+    private final long[] keys;
+    private final long[] values;
+    // Modifié seulement pendant la construction d'une copie, avant sa publication
+    private int size;
+
+    private LongLongMap(long[] keys, long[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    long get(long key, long missing) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return missing;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copie avec un lot de clés ajoutées ou remplacées, en une passe
+     */
+    LongLongMap withAll(long[] keys, long[] values) {
+        LongLongMap copy = allocate(size + keys.length);
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != 0) {
+                copy.insert(this.keys[i], this.values[i]);
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] <= 0) {
+                throw new IllegalArgumentException("Clé invalide : " + keys[i]);
+            }
+            copy.insert(keys[i], values[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Table construite en une passe (chargement initial)
+     */
+    static LongLongMap of(long[] keys, long[] values) {
+        LongLongMap map = allocate(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] <= 0) {
+                throw new IllegalArgumentException("Clé invalide : " + keys[i]);
+            }
+            map.insert(keys[i], values[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Copie réduite aux entrées dont la valeur vérifie le prédicat
+     */
+    LongLongMap retainValues(LongPredicate keep) {
+        int kept = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && keep.test(values[i])) {
+                kept++;
+            }
+        }
+        if (kept == size) {
+            return this;
+        }
+        LongLongMap copy = allocate(kept);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && keep.test(values[i])) {
+                copy.insert(keys[i], values[i]);
+            }
+        }
+        return copy;
+    }
+
+    // Taux de remplissage <= 1/2 : sondages courts
+    private static LongLongMap allocate(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        return new LongLongMap(new long[capacity], new long[capacity], 0);
+    }
+
+    // Uniquement sur une copie pas encore publiée
+    private void insert(long key, long value) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            size++;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -1,21 +1,35 @@
 package com.exercice1.security.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.exercice1.security.exception.InvalidDataException;
 import com.exercice1.security.model.RefreshToken;
 import com.exercice1.security.model.User;
 import com.exercice1.security.repository.RefreshTokenRepository;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class RefreshTokenService {
     
+    private static final int PURGE_BATCH_SIZE = 500;
+    
     @Value("${jwt.refresh.expiration:604800000}") // 7 jours par défaut
     private long refreshTokenExpiration;
     
@@ -23,9 +37,10 @@ public class RefreshTokenService {
     private long refreshTokenExpirationRememberMe;
     
     private final RefreshTokenRepository refreshTokenRepository;
+    private final PlatformTransactionManager transactionManager;
     
     /**
-     * Créer un nouveau refresh token pour un utilisateur
+     * Créer un nouveau refresh token pour un utilisateur (nouvelle famille)
      */
     @Transactional
     public RefreshToken createRefreshToken(User user, boolean rememberMe) {
@@ -38,23 +53,16 @@ public class RefreshTokenService {
             : refreshTokenExpiration;
         
         // 3. Créer le token
-        RefreshToken refreshToken = RefreshToken.builder()
-            .user(user)
-            .token(UUID.randomUUID().toString())  // ← UUID aléatoire
-            .expiryDate(Instant.now().plusMillis(expirationTime))
-            .revoked(false)
-            .build();
-        
-        return refreshTokenRepository.save(refreshToken);
+        return issue(user, UUID.randomUUID().toString(), Instant.now().plusMillis(expirationTime));
     }
     
     /**
      * Vérifier et récupérer un refresh token valide
      */
     public RefreshToken verifyRefreshToken(String token) {
-        // 1. Chercher en DB
+        // 1. Chercher en DB (par hash)
         RefreshToken refreshToken = refreshTokenRepository
-            .findByToken(token)
+            .findByTokenHash(hash(token))
             .orElseThrow(() -> new InvalidDataException("Invalid refresh token"));
         
         // 2. Vérifier si révoqué
@@ -72,22 +80,103 @@ public class RefreshTokenService {
     }
     
     /**
-     * Révoquer un refresh token (logout)
+     * Échanger un refresh token contre un nouveau de la même famille (rotation).
+     * Un token déjà consommé qui revient signale un vol : toute la famille est révoquée.
+     */
+    @Transactional(noRollbackFor = InvalidDataException.class)
+    public RefreshToken rotateRefreshToken(String token) {
+        RefreshToken current = refreshTokenRepository
+            .findByTokenHash(hash(token))
+            .orElseThrow(() -> new InvalidDataException("Invalid refresh token"));
+        
+        if (current.getExpiryDate().isBefore(Instant.now())) {
+            refreshTokenRepository.delete(current);
+            throw new InvalidDataException("Refresh token has expired");
+        }
+        
+        // Mise à jour conditionnelle : échoue si le token est déjà révoqué ou consommé
+        if (refreshTokenRepository.consume(current.getId()) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId());
+            log.warn("Réutilisation d'un refresh token révoqué (user {}), {} token(s) révoqué(s)",
+                current.getUser().getUsername(), revoked);
+            throw new InvalidDataException("Refresh token has been revoked");
+        }
+        
+        // Le nouveau token garde l'expiration de la famille : la rotation ne prolonge pas la session
+        return issue(current.getUser(), current.getFamilyId(), current.getExpiryDate());
+    }
+    
+    /**
+     * Révoquer un refresh token (logout), retourne son propriétaire
      */
     @Transactional
-    public void revokeRefreshToken(String token) {
-        refreshTokenRepository.findByToken(token).ifPresent(refreshToken -> {
-            refreshToken.setRevoked(true);
-            refreshTokenRepository.save(refreshToken);
+    public Optional<User> revokeRefreshToken(String token) {
+        return refreshTokenRepository.findByTokenHash(hash(token)).map(refreshToken -> {
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            return refreshToken.getUser();
         });
     }
 
 
     @Transactional
     public void revokeUserRefreshToken(User user) {
-        refreshTokenRepository.findByUser(user).ifPresent(refreshToken -> {
-            refreshToken.setRevoked(true);
-            refreshTokenRepository.save(refreshToken);
-        });
+        refreshTokenRepository.revokeByUser(user);
+    }
+    
+    /**
+     * Supprime par lots les tokens expirés, puis les familles entièrement révoquées.
+     * Deux parcours par index (date d'expiration, puis famille par clé) au lieu d'un
+     * balayage complet de la table par lot. Un lot par transaction : pas de verrou long sur la table.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval:3600000}")
+    public int purgeTokens() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Instant now = Instant.now();
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = refreshTokenRepository.findExpiredIds(now, PageRequest.of(0, PURGE_BATCH_SIZE));
+            if (!ids.isEmpty()) {
+                List<Long> batch = ids;
+                purged += transaction.execute(status -> refreshTokenRepository.deleteByIdIn(batch));
+            }
+        } while (ids.size() == PURGE_BATCH_SIZE);
+        String lastFamily = "";
+        List<String> families;
+        do {
+            families = refreshTokenRepository.findRevokedFamilies(lastFamily, PageRequest.of(0, PURGE_BATCH_SIZE));
+            if (!families.isEmpty()) {
+                List<String> batch = families;
+                purged += transaction.execute(status -> refreshTokenRepository.deleteRevokedFamilies(batch));
+                lastFamily = families.get(families.size() - 1);
+            }
+        } while (families.size() == PURGE_BATCH_SIZE);
+        if (purged > 0) {
+            log.info("Refresh tokens purgés : {}", purged);
+        }
+        return purged;
+    }
+    
+    private RefreshToken issue(User user, String familyId, Instant expiryDate) {
+        String token = UUID.randomUUID().toString();  // ← UUID aléatoire
+        RefreshToken refreshToken = refreshTokenRepository.save(RefreshToken.builder()
+            .user(user)
+            .tokenHash(hash(token))
+            .familyId(familyId)
+            .expiryDate(expiryDate)
+            .revoked(false)
+            .build());
+        refreshToken.setToken(token);
+        return refreshToken;
+    }
+    
+    // Hash de longueur fixe : la valeur en clair n'est jamais stockée
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.exercice1.security.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.exercice1.security.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Version courante des tokens par utilisateur, gardée en cache quelques secondes.
+ * Remplace le chargement complet de l'utilisateur à chaque requête :
+ * une révocation (incrément de version) est visible au plus tard après le TTL
+ * sur les autres instances, immédiatement sur celle qui l'a faite.
+ * Cache borné (LRU, comme UserDetailsCache) : au-delà de MAX_ENTRIES,
+ * l'entrée la moins récemment lue sort à chaque insertion.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenVersionService {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final UserRepository userRepository;
+
+    @Value("${jwt.version-cache.ttl-ms:30000}")
+    private long ttlMillis;
+
+    // Ordre d'accès : l'entrée la moins récemment lue sort en premier
+    private final Map<String, CachedVersion> versions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedVersion> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private record CachedVersion(Long version, long loadedAt) {
+    }
+
+    /**
+     * Vrai si la version portée par le token est encore la version courante de l'utilisateur
+     * (faux si l'utilisateur n'existe plus)
+     */
+    public boolean isCurrent(String username, long tokenVersion) {
+        Long current = currentVersion(username);
+        return current != null && current == tokenVersion;
+    }
+
+    /**
+     * Oublie la version en cache (à appeler après un incrément)
+     */
+    public void evict(String username) {
+        CacheEviction.run(() -> {
+            synchronized (versions) {
+                versions.remove(username);
+            }
+        });
+    }
+
+    private Long currentVersion(String username) {
+        long now = System.currentTimeMillis();
+        CachedVersion cached;
+        synchronized (versions) {
+            cached = versions.get(username);
+        }
+        if (cached != null && now - cached.loadedAt() < ttlMillis) {
+            return cached.version();
+        }
+        // Chargement hors verrou
+        Long version = userRepository.findTokenVersionByUsername(username).orElse(null);
+        synchronized (versions) {
+            versions.put(username, new CachedVersion(version, now));
+        }
+        return version;
+    }
+}
@@ -0,0 +1,109 @@
+package com.exercice1.security.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache borné (LRU) et à durée de vie limitée des UserDetails.
+ * Stocke un instantané immuable et rend une nouvelle instance à chaque lecture :
+ * Spring Security efface le mot de passe du principal après authentification,
+ * une instance partagée ne servirait qu'une fois.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Ordre d'accès : l'entrée la moins récemment lue sort en premier
+    private final LinkedHashMap<String, Entry> entries;
+
+    private record Entry(String username, String password, List<String> authorities, long loadedAt) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    public UserDetailsCache(@Value("${user-details.cache.max-size:1000}") int maxSize,
+            @Value("${user-details.cache.ttl-ms:60000}") long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > UserDetailsCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * UserDetails en cache, ou chargé (hors verrou) puis mis en cache
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(username);
+            if (entry != null && now - entry.loadedAt() >= ttlMillis) {
+                entries.remove(username);
+                evictions.incrementAndGet();
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return toUserDetails(entry);
+        }
+        misses.incrementAndGet();
+        UserDetails loaded = loader.apply(username);
+        Entry fresh = new Entry(loaded.getUsername(), loaded.getPassword(),
+                loaded.getAuthorities().stream().map(Object::toString).toList(), now);
+        synchronized (entries) {
+            entries.put(username, fresh);
+        }
+        return toUserDetails(fresh);
+    }
+
+    /**
+     * Retire l'utilisateur du cache (rôles, mot de passe ou compte modifiés)
+     */
+    public void evict(String username) {
+        CacheEviction.run(() -> {
+            synchronized (entries) {
+                entries.remove(username);
+            }
+        });
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), entries.size());
+        }
+    }
+
+    private static UserDetails toUserDetails(Entry entry) {
+        return User.withUsername(entry.username())
+                .password(entry.password())
+                .authorities(entry.authorities().stream()
+                        .map(SimpleGrantedAuthority::new)
+                        .toList())
+                .build();
+    }
+}
@@ -4,21 +4,49 @@ import java.util.stream.Collectors;
 
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.exercice1.security.model.User;
 import com.exercice1.security.repository.UserRepository;
 
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 @Service
 @AllArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private UserRepository userRepository;
+    private UserDetailsCache userDetailsCache;
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userDetailsCache.get(username, this::loadFromDatabase);
+    }
+
+    /**
+     * Appelé après un login réussi quand le hash stocké n'a pas le format ou le coût cible :
+     * enregistre le nouveau hash calculé à partir du mot de passe saisi
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        int updated = userRepository.upgradePassword(user.getUsername(), user.getPassword(), newPassword);
+        userDetailsCache.evict(user.getUsername());
+        if (updated == 0) {
+            // Mot de passe modifié entre-temps : on garde le nouveau
+            return user;
+        }
+        log.debug("Hash du mot de passe mis à niveau pour {}", user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+            .password(newPassword)
+            .build();
+    }
+
+    private UserDetails loadFromDatabase(String username) {
         // Chercher user dans la DB
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found"));
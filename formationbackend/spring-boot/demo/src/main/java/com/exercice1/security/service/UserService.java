@@ -1,6 +1,9 @@
 package com.exercice1.security.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -11,8 +14,10 @@ import com.exercice1.security.dto.RegisterRequest;
 import com.exercice1.security.dto.RoleUpdateRequest;
 import com.exercice1.security.dto.UserResponse;
 import com.exercice1.security.exception.InvalidCredentialsException;
+import com.exercice1.security.model.RefreshToken;
 import com.exercice1.security.model.User;
 import com.exercice1.security.repository.UserRepository;
+import com.exercice1.security.security.EmailService;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +28,14 @@ public class UserService {
     
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
+    private final TokenVersionService tokenVersionService;
+    private final UserDetailsCache userDetailsCache;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+    private final EmailService emailService;
+    private final RefreshTokenService refreshTokenService;
+
+    public record Registration(User user, RefreshToken refreshToken) {
+    }
 
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
@@ -53,7 +66,11 @@ public class UserService {
             .orElseThrow(() -> new InvalidDataException("User not found"));
         
         user.setRoles(request.getRoles());
+        // Les rôles sont portés par le token : les anciens tokens ne doivent plus servir
+        user.setTokenVersion(user.getTokenVersion() + 1);
         User updated = userRepository.save(user);
+        tokenVersionService.evict(updated.getUsername());
+        userDetailsCache.evict(updated.getUsername());
         
         return new UserResponse(
             updated.getId(),
@@ -65,10 +82,11 @@ public class UserService {
     
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new InvalidDataException("User not found");
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+            .orElseThrow(() -> new InvalidDataException("User not found"));
+        userRepository.delete(user);
+        tokenVersionService.evict(user.getUsername());
+        userDetailsCache.evict(user.getUsername());
     }
     
     // Créer un utilisateur
@@ -82,6 +100,77 @@ public class UserService {
         return userRepository.save(user);
     }
     
+    /**
+     * Inscription avec un mot de passe déjà chiffré par l'appelant : le hachage (qui peut
+     * attendre le pool de hachage) se fait hors transaction, sans tenir de connexion.
+     * Utilisateur, email de vérification et refresh token sont validés ensemble.
+     */
+    @Transactional
+    public Registration register(RegisterRequest request, String encodedPassword) {
+        String verificationToken = UUID.randomUUID().toString();
+
+        User user = userRepository.save(User.builder()
+            .username(request.getUsername())
+            .email(request.getEmail())
+            .password(encodedPassword)
+            .roles(Set.of("ROLE_USER"))
+            .enabled(false) // ← Pas activé par défaut
+            .verificationToken(verificationToken)
+            .verificationTokenExpiry(LocalDateTime.now().plusHours(24))
+            .build());
+
+        emailService.sendVerificationEmail(user.getEmail(), verificationToken);
+
+        // Refresh token émis même si le compte n'est pas vérifié (pour tester)
+        return new Registration(user, refreshTokenService.createRefreshToken(user, false));
+    }
+
+    /**
+     * Nouveau token de vérification, remis par l'outbox
+     */
+    @Transactional
+    public void resendVerification(String email) {
+        User user = userRepository.findByEmail(email)
+            .orElseThrow(() -> new InvalidDataException("User not found"));
+
+        if (user.isEnabled()) {
+            throw new InvalidDataException("Email already verified");
+        }
+
+        String newToken = UUID.randomUUID().toString();
+        user.setVerificationToken(newToken);
+        user.setVerificationTokenExpiry(LocalDateTime.now().plusHours(24));
+        userRepository.save(user);
+
+        emailService.sendVerificationEmail(user.getEmail(), newToken);
+    }
+
+    /**
+     * Remplace un mot de passe vérifié et chiffré par l'appelant, hors transaction.
+     * Refusé si le mot de passe a changé depuis la vérification (currentHash) ;
+     * invalide ensuite tous les tokens de l'utilisateur et prévient par email.
+     */
+    @Transactional
+    public void replacePassword(Long userId, String currentHash, String newHash) {
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new InvalidDataException("User not found"));
+        if (!user.getPassword().equals(currentHash)) {
+            throw new InvalidDataException("Password was changed meanwhile, please retry");
+        }
+
+        user.setPassword(newHash);
+        // Invalider les access tokens déjà émis
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        tokenVersionService.evict(user.getUsername());
+        userDetailsCache.evict(user.getUsername());
+
+        refreshTokenService.revokeUserRefreshToken(user);
+        accessTokenRevocationService.revokeAll(user.getId());
+
+        emailService.sendPasswordChangedEmail(user.getEmail(), user.getUsername());
+    }
+    
     // Vérifier le mot de passe
     public boolean checkPassword(String rawPassword, String encodedPassword) {
         return passwordEncoder.matches(rawPassword, encodedPassword);
@@ -99,6 +188,10 @@ public class UserService {
         
         // Mettre à jour avec le nouveau (chiffré)
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        tokenVersionService.evict(user.getUsername());
+        userDetailsCache.evict(user.getUsername());
+        accessTokenRevocationService.revokeAll(user.getId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.exercice1.security.repository.UserRepository;
+import com.exercice1.security.service.AccessTokenRevocationService;
+
+class AccessTokenRevocationServiceTests {
+
+    private final AccessTokenRevocationService service =
+            new AccessTokenRevocationService(mock(UserRepository.class), 900_000, 604_800_000);
+
+    @Test
+    void shouldRejectRevokedTokensBeforeAndAfterMerge() {
+        service.revokeAll(1L);
+        assertThat(service.isRevoked(1L, 0L)).isTrue();
+        assertThat(service.isRevoked(2L, 0L)).isFalse();
+
+        // size() fusionne les révocations en attente dans la table publiée
+        assertThat(service.size()).isEqualTo(1);
+        assertThat(service.isRevoked(1L, 0L)).isTrue();
+        assertThat(service.isRevoked(1L, Long.MAX_VALUE)).isFalse();
+        assertThat(service.isRevoked(null, 0L)).isFalse();
+    }
+
+    @Test
+    void shouldNeverAcceptARevokedTokenWhileBatchesAreMerged() throws InterruptedException {
+        // Chaque révocation terminée doit être vue, même pendant la publication d'un lot
+        AtomicLong lastRevoked = new AtomicLong();
+        AtomicLong missed = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                long userId = lastRevoked.get();
+                if (userId > 0 && !service.isRevoked(userId, 0L)) {
+                    missed.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (long userId = 1; userId <= 50_000; userId++) {
+            service.revokeAll(userId);
+            lastRevoked.set(userId);
+        }
+        done.set(true);
+        reader.join();
+
+        assertThat(missed).hasValue(0);
+        assertThat(service.size()).isEqualTo(50_000);
+    }
+}
@@ -0,0 +1,81 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.exercice1.security.exception.HashingCapacityExceededException;
+import com.exercice1.security.security.BoundedPasswordEncoder;
+
+class BoundedPasswordEncoderTests {
+
+    @Test
+    void shouldRejectWhenQueueIsFullAndRecoverAfterwards() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(release), 1, 1, 5000);
+        try {
+            // Un hachage en cours et un en file : le pool est plein
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            waitUntil(() -> encoder.stats().active() == 1);
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            waitUntil(() -> encoder.stats().queued() == 1);
+
+            assertThatThrownBy(() -> encoder.matches("c", "{hash}c"))
+                    .isInstanceOf(HashingCapacityExceededException.class);
+            assertThat(encoder.stats().rejected()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("{hash}a");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("{hash}b");
+            assertThat(encoder.matches("c", "{hash}c")).isTrue();
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void shouldGiveUpWhenResultTakesTooLong() {
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(release), 1, 4, 50);
+        try {
+            assertThatThrownBy(() -> encoder.encode("slow"))
+                    .isInstanceOf(HashingCapacityExceededException.class);
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private record BlockingEncoder(CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "{hash}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    }
+}
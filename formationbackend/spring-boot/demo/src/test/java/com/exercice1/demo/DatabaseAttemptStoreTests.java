@@ -0,0 +1,88 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.security.repository.LoginAttemptRepository;
+import com.exercice1.security.service.AttemptStore.AttemptPolicy;
+import com.exercice1.security.service.DatabaseAttemptStore;
+
+@SpringBootTest(classes = DemoApplication.class)
+class DatabaseAttemptStoreTests {
+
+    @Autowired
+    private LoginAttemptRepository loginAttemptRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentFailuresShouldAllBeCounted() throws Exception {
+        DatabaseAttemptStore store = new DatabaseAttemptStore(loginAttemptRepository, transactionManager);
+        AttemptPolicy policy = new AttemptPolicy(1000, 60_000, 60_000);
+        long now = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 80; i++) {
+                futures.add(executor.submit(() -> store.recordFailure("user:concurrent", policy, now)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(store.get("user:concurrent", policy, now).failures()).isEqualTo(80);
+    }
+
+    @Test
+    void blockShouldBeSharedBetweenInstancesAndPurgedAfterExpiry() {
+        DatabaseAttemptStore node1 = new DatabaseAttemptStore(loginAttemptRepository, transactionManager);
+        DatabaseAttemptStore node2 = new DatabaseAttemptStore(loginAttemptRepository, transactionManager);
+        AttemptPolicy policy = new AttemptPolicy(3, 60_000, 120_000);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 3; i++) {
+            node1.recordFailure("ip:10.1.1.1", policy, now);
+        }
+        assertThat(node1.blockedUntil("ip:10.1.1.1", now)).isEqualTo(now + 120_000);
+        // L'autre instance le voit après sa synchronisation, sans lecture par login
+        assertThat(node2.blockedUntil("ip:10.1.1.1", now)).isZero();
+        node2.syncBlocks();
+        assertThat(node2.blockedUntil("ip:10.1.1.1", now)).isEqualTo(now + 120_000);
+
+        assertThat(node1.purgeExpired(now)).isZero();
+        assertThat(node1.purgeExpired(now + 120_001)).isPositive();
+        assertThat(loginAttemptRepository.findById("ip:10.1.1.1")).isEmpty();
+    }
+
+    @Test
+    void clearShouldOnlyDeleteRowsForFailuresCountedOnThisInstance() {
+        DatabaseAttemptStore node1 = new DatabaseAttemptStore(loginAttemptRepository, transactionManager);
+        DatabaseAttemptStore node2 = new DatabaseAttemptStore(loginAttemptRepository, transactionManager);
+        AttemptPolicy policy = new AttemptPolicy(5, 60_000, 60_000);
+        long now = System.currentTimeMillis();
+
+        node2.recordFailure("user:bob", policy, now);
+        // Login réussi sur une instance qui n'a vu aucun échec : pas de DELETE, la ligne expirera
+        node1.clear("user:bob");
+        assertThat(loginAttemptRepository.findById("user:bob")).isPresent();
+
+        node2.clear("user:bob");
+        assertThat(loginAttemptRepository.findById("user:bob")).isEmpty();
+    }
+}
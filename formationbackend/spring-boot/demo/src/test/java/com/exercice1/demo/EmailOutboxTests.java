@@ -0,0 +1,123 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.security.model.OutboxEmail;
+import com.exercice1.security.repository.OutboxEmailRepository;
+import com.exercice1.security.security.EmailMessage;
+import com.exercice1.security.security.EmailService;
+import com.exercice1.security.security.EmailTransport;
+
+// Base dédiée : les dispatchers des autres contextes de test (transport "log") ne doivent pas
+// réserver ni envoyer les emails de ce test
+@SpringBootTest(classes = DemoApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-tests",
+        "email.transport=fake",
+        "email.outbox.poll-interval=50",
+        "email.outbox.backoff-ms=10"
+})
+@Import(EmailOutboxTests.FakeTransportConfig.class)
+class EmailOutboxTests {
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private FakeEmailTransport transport;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void emailShouldOnlyLeaveWithCommittedTransaction() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            emailService.sendVerificationEmail("rolled-back@example.com", "t1");
+            status.setRollbackOnly();
+        });
+        transaction.executeWithoutResult(status -> emailService.sendVerificationEmail("committed@example.com", "t2"));
+
+        await(() -> transport.delivered("committed@example.com"));
+        assertThat(transport.delivered("rolled-back@example.com")).isFalse();
+        assertThat(transport.sent).filteredOn(message -> message.to().equals("committed@example.com"))
+                .singleElement()
+                .satisfies(message -> assertThat(message.body()).contains("/api/auth/verify/t2"));
+    }
+
+    @Test
+    void failedDeliveriesShouldBeRetriedThenAbandoned() throws Exception {
+        transport.failures.put("flaky@example.com", 2);
+        transport.failures.put("broken@example.com", Integer.MAX_VALUE);
+        emailService.sendPasswordChangedEmail("flaky@example.com", "flaky");
+        emailService.sendPasswordChangedEmail("broken@example.com", "broken");
+
+        await(() -> transport.delivered("flaky@example.com"));
+        await(() -> outboxEmailRepository.findAll().stream()
+                .anyMatch(email -> email.getRecipient().equals("broken@example.com")
+                        && email.getStatus() == OutboxEmail.Status.FAILED));
+        assertThat(outboxEmailRepository.findAll()).extracting(OutboxEmail::getRecipient)
+                .doesNotContain("flaky@example.com");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("délai d'attente dépassé").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    static class FakeEmailTransport implements EmailTransport {
+
+        final List<EmailMessage> sent = new CopyOnWriteArrayList<>();
+        // destinataire -> nombre d'échecs restants
+        final Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+        @Override
+        public Map<Long, String> send(List<EmailMessage> batch) {
+            Map<Long, String> failed = new HashMap<>();
+            for (EmailMessage message : batch) {
+                Integer remaining = failures.computeIfPresent(message.to(), (to, count) -> count - 1);
+                if (remaining != null && remaining >= 0) {
+                    failed.put(message.id(), "boîte indisponible");
+                } else {
+                    sent.add(message);
+                }
+            }
+            return failed;
+        }
+
+        boolean delivered(String to) {
+            return sent.stream().anyMatch(message -> message.to().equals(to));
+        }
+    }
+
+    @TestConfiguration
+    static class FakeTransportConfig {
+
+        @Bean
+        FakeEmailTransport fakeEmailTransport() {
+            return new FakeEmailTransport();
+        }
+    }
+}
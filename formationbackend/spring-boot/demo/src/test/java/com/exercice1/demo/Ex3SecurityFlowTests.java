@@ -1,5 +1,6 @@
 package com.exercice1.demo;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
@@ -13,6 +14,7 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +27,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.exercice1.DemoApplication;
 import com.exercice1.security.model.RefreshToken;
@@ -74,15 +77,15 @@ class Ex3SecurityFlowTests {
                 .enabled(true)
                 .build();
 
-        RefreshToken token = RefreshToken.builder()
-                .id(1L)
-                .token("refresh-123")
+        RefreshToken rotated = RefreshToken.builder()
+                .id(2L)
+                .token("refresh-456")
                 .user(user)
                 .expiryDate(Instant.now().plusSeconds(3600))
                 .revoked(false)
                 .build();
 
-        when(refreshTokenService.verifyRefreshToken("refresh-123")).thenReturn(token);
+        when(refreshTokenService.rotateRefreshToken("refresh-123")).thenReturn(rotated);
         when(jwtService.generateToken(any(), any(Boolean.class))).thenReturn("new-access-token");
         when(jwtService.getExpirationTime(false)).thenReturn(86400000L);
 
@@ -95,7 +98,7 @@ class Ex3SecurityFlowTests {
                         """))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accessToken").value("new-access-token"))
-                .andExpect(jsonPath("$.refreshToken").value("refresh-123"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-456"))
                 .andExpect(jsonPath("$.username").value("alice"));
     }
 
@@ -198,9 +201,18 @@ class Ex3SecurityFlowTests {
                 .enabled(true)
                 .build();
 
+        // Le hachage se fait hors transaction : il ne doit pas tenir de connexion
+        AtomicBoolean hashedInTransaction = new AtomicBoolean();
         when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches("OldPassword123", "encoded-old")).thenReturn(true);
-        when(passwordEncoder.encode("NewPassword123")).thenReturn("encoded-new");
+        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("OldPassword123", "encoded-old")).thenAnswer(invocation -> {
+            hashedInTransaction.compareAndSet(false, TransactionSynchronizationManager.isActualTransactionActive());
+            return true;
+        });
+        when(passwordEncoder.encode("NewPassword123")).thenAnswer(invocation -> {
+            hashedInTransaction.compareAndSet(false, TransactionSynchronizationManager.isActualTransactionActive());
+            return "encoded-new";
+        });
         when(userRepository.save(any(User.class))).thenReturn(user);
         doNothing().when(refreshTokenService).revokeUserRefreshToken(any(User.class));
         doNothing().when(emailService).sendPasswordChangedEmail(anyString(), anyString());
@@ -214,5 +226,8 @@ class Ex3SecurityFlowTests {
                         }
                         """))
                 .andExpect(status().isOk());
+
+        assertThat(hashedInTransaction).isFalse();
+        assertThat(user.getPassword()).isEqualTo("encoded-new");
     }
 }
@@ -0,0 +1,126 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.security.dto.RoleUpdateRequest;
+import com.exercice1.security.repository.UserRepository;
+import com.exercice1.security.security.JwtService;
+import com.exercice1.security.security.JwtUserDetails;
+import com.exercice1.security.service.AccessTokenRevocationService;
+import com.exercice1.security.service.UserService;
+
+@SpringBootTest(classes = DemoApplication.class)
+@AutoConfigureMockMvc
+class JwtServiceTests {
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccessTokenRevocationService accessTokenRevocationService;
+
+    @Test
+    void parseShouldValidateOnceAndExposeClaims() {
+        UserDetails alice = user("alice");
+        String token = jwtService.generateToken(alice);
+
+        JwtService.ParsedToken parsed = jwtService.parse(token);
+        assertThat(parsed).isNotNull();
+        assertThat(parsed.username()).isEqualTo("alice");
+        assertThat(parsed.isValidFor(alice)).isTrue();
+        assertThat(parsed.isValidFor(user("bob"))).isFalse();
+        assertThat(jwtService.isTokenValid(token, alice)).isTrue();
+    }
+
+    @Test
+    void parseShouldRejectTamperedOrMalformedTokens() {
+        String token = jwtService.generateToken(user("alice"));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThat(jwtService.parse(tampered)).isNull();
+        assertThat(jwtService.parse("not-a-jwt")).isNull();
+        assertThat(jwtService.isTokenValid("not-a-jwt", user("alice"))).isFalse();
+    }
+
+    @Test
+    void statelessAuthenticationShouldHonourTokenVersion() throws Exception {
+        com.exercice1.security.model.User user = userRepository.save(com.exercice1.security.model.User.builder()
+                .username("stateless")
+                .email("stateless@example.com")
+                .password("encoded")
+                .roles(new HashSet<>(Set.of("ROLE_USER")))
+                .enabled(true)
+                .build());
+        String token = jwtService.generateToken(JwtUserDetails.from(user));
+
+        assertThat(jwtService.parse(token).toUserDetails().getAuthorities())
+                .extracting(Object::toString).containsExactly("ROLE_USER");
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("stateless"));
+
+        // Changement de rôles : la version augmente, l'ancien token est refusé
+        RoleUpdateRequest roles = new RoleUpdateRequest();
+        roles.setRoles(new HashSet<>(Set.of("ROLE_MODERATOR")));
+        userService.updateUserRoles(user.getId(), roles);
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void revokedAccessTokensShouldStayRejectedAfterRebuild() throws Exception {
+        com.exercice1.security.model.User user = userRepository.save(com.exercice1.security.model.User.builder()
+                .username("revoked")
+                .email("revoked@example.com")
+                .password("encoded")
+                .roles(new HashSet<>(Set.of("ROLE_USER")))
+                .enabled(true)
+                .build());
+        String token = jwtService.generateToken(JwtUserDetails.from(user));
+        // "iat" est à la seconde : la révocation doit tomber sur une seconde suivante
+        Thread.sleep(1100);
+
+        accessTokenRevocationService.revokeAll(user.getId());
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+
+        // Reconstruit depuis la base (redémarrage)
+        accessTokenRevocationService.rebuild();
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+
+        String fresh = jwtService.generateToken(JwtUserDetails.from(userRepository.findById(user.getId()).orElseThrow()));
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + fresh))
+                .andExpect(status().isOk());
+    }
+
+    private UserDetails user(String username) {
+        return new User(username, "secret", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+}
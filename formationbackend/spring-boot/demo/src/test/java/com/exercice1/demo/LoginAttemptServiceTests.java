@@ -0,0 +1,72 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.exercice1.security.service.InMemoryAttemptStore;
+import com.exercice1.security.service.LoginAttemptService;
+
+class LoginAttemptServiceTests {
+
+    @Test
+    void shouldBlockUsernameAfterMaxFailures() {
+        LoginAttemptService service = new LoginAttemptService(new InMemoryAttemptStore(1000));
+        for (int i = 0; i < 4; i++) {
+            service.loginFailed("alice", "10.0.0.1");
+        }
+        assertThat(service.isBlocked("alice")).isFalse();
+        assertThat(service.getRemainingAttempts("alice")).isEqualTo(1);
+
+        service.loginFailed("alice", "10.0.0.1");
+        assertThat(service.isBlocked("alice")).isTrue();
+        assertThat(service.getRemainingBlockTime("alice")).isBetween(59L, 60L);
+
+        service.loginSucceeded("alice");
+        assertThat(service.isBlocked("alice")).isFalse();
+        assertThat(service.getRemainingAttempts("alice")).isEqualTo(5);
+    }
+
+    @Test
+    void shouldBlockIpSprayingManyUsernames() {
+        LoginAttemptService service = new LoginAttemptService(new InMemoryAttemptStore(1000));
+        for (int i = 0; i < 50; i++) {
+            service.loginFailed("user-" + i, "10.0.0.2");
+        }
+        assertThat(service.isIpBlocked("10.0.0.2")).isTrue();
+        assertThat(service.isIpBlocked("10.0.0.3")).isFalse();
+        assertThat(service.isBlocked("user-0")).isFalse();
+    }
+
+    @Test
+    void shouldStayWithinCapacityAndKeepActiveBlocksOnSweep() {
+        InMemoryAttemptStore store = new InMemoryAttemptStore(32);
+        LoginAttemptService service = new LoginAttemptService(store);
+        for (int i = 0; i < 1000; i++) {
+            service.loginFailed("random-" + i, null);
+        }
+        assertThat(store.size()).isLessThanOrEqualTo(32);
+
+        LoginAttemptService fresh = new LoginAttemptService(new InMemoryAttemptStore(1000));
+        for (int i = 0; i < 5; i++) {
+            fresh.loginFailed("victim", null);
+        }
+        assertThat(fresh.sweep()).isZero();
+        assertThat(fresh.isBlocked("victim")).isTrue();
+    }
+
+    @Test
+    void shouldNotEvictActiveBlockUnderUsernameSpray() {
+        InMemoryAttemptStore store = new InMemoryAttemptStore(32);
+        LoginAttemptService service = new LoginAttemptService(store);
+        for (int i = 0; i < 5; i++) {
+            service.loginFailed("victim", "10.0.0.1");
+        }
+        // Usernames aléatoires depuis beaucoup d'adresses, sous la limite par IP
+        for (int i = 0; i < 1000; i++) {
+            service.loginFailed("spray-" + i, "10.1." + (i / 40) + ".1");
+        }
+        assertThat(service.isBlocked("victim")).isTrue();
+        assertThat(store.size()).isLessThanOrEqualTo(32 + 1);
+    }
+}
@@ -0,0 +1,120 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.demo.dto.CustomerRequest;
+import com.exercice1.demo.dto.OrderItemRequest;
+import com.exercice1.demo.dto.OrderRequest;
+import com.exercice1.demo.dto.OrderResponse;
+import com.exercice1.demo.dto.OrderStatisticsResponse;
+import com.exercice1.demo.dto.PagedResponse;
+import com.exercice1.demo.dto.ProductRequest;
+import com.exercice1.demo.model.Customer;
+import com.exercice1.demo.model.enums.OrderStatus;
+import com.exercice1.demo.repository.CustomerRepository;
+import com.exercice1.demo.service.CustomerService;
+import com.exercice1.demo.service.OrderLedgerService;
+import com.exercice1.demo.service.OrderService;
+import com.exercice1.demo.service.ProductService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(classes = DemoApplication.class,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderQueryTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderLedgerService orderLedgerService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void orderPageShouldLoadItemsWithoutNPlusOne() {
+        customerService.createCustomer(new CustomerRequest(Customer.builder()
+                .firstName("Query")
+                .lastName("Pages")
+                .email("query@example.com")
+                .build()));
+        Long customerId = customerRepository.findByEmail("query@example.com").orElseThrow().getId();
+        Long book = product("Query Book");
+        Long pencil = product("Query Pencil");
+        for (int i = 0; i < 6; i++) {
+            orderService.createOrder(new OrderRequest(customerId, List.of(
+                    new OrderItemRequest(book, 1),
+                    new OrderItemRequest(pencil, 2))));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        PagedResponse<OrderResponse> page = customerService.getCustomerOrders(customerId, 0, 50, null, true);
+
+        assertThat(page.getContent()).hasSize(6)
+                .allSatisfy(order -> assertThat(order.getItems()).hasSize(2));
+        // page des commandes + lignes et produits en une requête (le COUNT est évité : page incomplète)
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(orderService.getOrdersByStatus(OrderStatus.PENDING, 0, 50, null, true).getContent())
+                .isNotEmpty();
+    }
+
+    @Test
+    void statisticsShouldFollowOrderLifecycle() {
+        customerService.createCustomer(new CustomerRequest(Customer.builder()
+                .firstName("Ledger")
+                .lastName("Stats")
+                .email("ledger@example.com")
+                .build()));
+        Long customerId = customerRepository.findByEmail("ledger@example.com").orElseThrow().getId();
+        Long lamp = product("Ledger Lamp");
+        OrderStatisticsResponse before = orderService.getOrderStatistics();
+
+        OrderResponse delivered = orderService.createOrder(
+                new OrderRequest(customerId, List.of(new OrderItemRequest(lamp, 2))));
+        OrderResponse cancelled = orderService.createOrder(
+                new OrderRequest(customerId, List.of(new OrderItemRequest(lamp, 1))));
+        orderService.updateOrderStatus(delivered.getId(), OrderStatus.DELIVERED);
+        orderService.cancelOrder(cancelled.getId());
+
+        OrderStatisticsResponse after = orderService.getOrderStatistics();
+        assertThat(after.totalVente()).isEqualTo(before.totalVente() + 1);
+        assertThat(after.SumTotalVente()).isEqualTo(before.SumTotalVente() + 6.0);
+
+        orderLedgerService.reconcile();
+        assertThat(orderService.getOrderStatistics()).isEqualTo(after);
+        assertThat(orderService.getDailyStatistics(LocalDate.now(), LocalDate.now()))
+                .singleElement()
+                .satisfies(day -> assertThat(day.statusCounts()).containsKeys("DELIVERED", "CANCELLED"));
+    }
+
+    private Long product(String name) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription("Commande");
+        request.setPrice(3.0);
+        request.setStock(100);
+        request.setCategory("BOOKS");
+        return productService.createProduct(request).getId();
+    }
+}
@@ -0,0 +1,115 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.demo.dto.BulkOrderResponse;
+import com.exercice1.demo.dto.BulkOrderResult;
+import com.exercice1.demo.dto.CustomerRequest;
+import com.exercice1.demo.dto.OrderItemRequest;
+import com.exercice1.demo.dto.OrderRequest;
+import com.exercice1.demo.dto.ProductRequest;
+import com.exercice1.demo.dto.ProductResponse;
+import com.exercice1.demo.exception.InsufficientStockException;
+import com.exercice1.demo.model.Customer;
+import com.exercice1.demo.repository.CustomerRepository;
+import com.exercice1.demo.service.CustomerService;
+import com.exercice1.demo.service.OrderService;
+import com.exercice1.demo.service.ProductService;
+
+@SpringBootTest(classes = DemoApplication.class)
+class OrderStockReservationTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void orderShouldReserveAllLinesOrNone() {
+        Long customerId = customer("reservation@example.com");
+        ProductResponse pen = product("Reservation Pen", 5);
+        ProductResponse ink = product("Reservation Ink", 1);
+
+        orderService.createOrder(new OrderRequest(customerId, List.of(
+                new OrderItemRequest(pen.getId(), 2),
+                new OrderItemRequest(pen.getId(), 1))));
+        assertThat(productService.getProductById(pen.getId()).getStock()).isEqualTo(2);
+
+        // Le stylo est réservable mais pas l'encre : rien ne doit être décrémenté
+        assertThatThrownBy(() -> orderService.createOrder(new OrderRequest(customerId, List.of(
+                new OrderItemRequest(pen.getId(), 1),
+                new OrderItemRequest(ink.getId(), 2)))))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(productService.getProductById(pen.getId()).getStock()).isEqualTo(2);
+        assertThat(productService.getProductById(ink.getId()).getStock()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkImportShouldReportEachOrder() {
+        Long customerId = customer("bulk@example.com");
+        ProductResponse mug = product("Bulk Mug", 3);
+
+        BulkOrderResponse response = orderService.createOrders(List.of(
+                new OrderRequest(customerId, List.of(new OrderItemRequest(mug.getId(), 2))),
+                new OrderRequest(-1L, List.of(new OrderItemRequest(mug.getId(), 1))),
+                new OrderRequest(customerId, List.of(new OrderItemRequest(mug.getId(), 2))),
+                new OrderRequest(customerId, List.of(new OrderItemRequest(mug.getId(), 1)))));
+
+        assertThat(response.created()).isEqualTo(2);
+        assertThat(response.results()).extracting(BulkOrderResult::index).containsExactly(0, 1, 2, 3);
+        assertThat(response.results()).extracting(result -> result.error() == null)
+                .containsExactly(true, false, false, true);
+        assertThat(response.results().get(0).totalAmount()).isEqualTo(4.0);
+        assertThat(productService.getProductById(mug.getId()).getStock()).isZero();
+    }
+
+    @Test
+    void bulkShortageShouldReportStockLeftByPreviousOrdersOfChunk() {
+        Long customerId = customer("bulk-stale@example.com");
+        ProductResponse cup = product("Bulk Cup", 3);
+
+        BulkOrderResponse response = orderService.createOrders(List.of(
+                new OrderRequest(customerId, List.of(new OrderItemRequest(cup.getId(), 2))),
+                new OrderRequest(customerId, List.of(new OrderItemRequest(cup.getId(), 1))),
+                new OrderRequest(customerId, List.of(new OrderItemRequest(cup.getId(), 1)))));
+
+        assertThat(response.created()).isEqualTo(2);
+        // Le produit, déjà chargé par les commandes précédentes du lot, doit être relu après l'UPDATE
+        assertThat(response.results().get(2).error()).contains("1 demandé(s), 0 disponible(s)");
+    }
+
+    private Long customer(String email) {
+        CustomerRequest request = new CustomerRequest(Customer.builder()
+                .firstName("Alice")
+                .lastName("Martin")
+                .email(email)
+                .build());
+        customerService.createCustomer(request);
+        return customerRepository.findByEmail(email).orElseThrow().getId();
+    }
+
+    private ProductResponse product(String name, int stock) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription("Stock");
+        request.setPrice(2.0);
+        request.setStock(stock);
+        request.setCategory("OTHER");
+        return productService.createProduct(request);
+    }
+}
@@ -0,0 +1,97 @@
+package com.exercice1.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.exercice1.security.security.PasswordEncoders;
+
+/**
+ * Mesure du coût d'un login (vérification du hash) selon l'algorithme et ses paramètres,
+ * pour choisir password.hashing.* en fonction du p99 visé.
+ * Désactivé par défaut, à lancer sur la machine cible :
+ *
+ * mvn test -Dtest=PasswordHashingBenchmark -Dbenchmark=true
+ *     [-Dbenchmark.bcrypt=10,11,12,13] [-Dbenchmark.argon2=19456:2:1,65536:3:1]
+ *     [-Dbenchmark.threads=4] [-Dbenchmark.iterations=200]
+ *
+ * Argon2 (mémoire en Ko:itérations:parallélisme) n'est mesuré que si BouncyCastle est présent.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "Benchmark-Password-123!";
+
+    @Test
+    void measureLoginThroughput() throws Exception {
+        int threads = Integer.getInteger("benchmark.threads", Runtime.getRuntime().availableProcessors());
+        int iterations = Integer.getInteger("benchmark.iterations", 200);
+
+        System.out.printf("%-24s %8s %10s %10s %10s%n", "encodeur", "threads", "logins/s", "p50 (ms)", "p99 (ms)");
+        for (String strength : System.getProperty("benchmark.bcrypt", "10,11,12,13").split(",")) {
+            int cost = Integer.parseInt(strength.trim());
+            run("bcrypt(" + cost + ")", PasswordEncoders.bcrypt(cost), threads, iterations);
+        }
+        if (PasswordEncoders.isArgon2Available()) {
+            for (String params : System.getProperty("benchmark.argon2", "19456:2:1,65536:3:1").split(",")) {
+                int[] p = Arrays.stream(params.trim().split(":")).mapToInt(Integer::parseInt).toArray();
+                run("argon2(" + params.trim() + ")", PasswordEncoders.argon2(p[0], p[1], p[2]), threads, iterations);
+            }
+        } else {
+            System.out.println("argon2 : BouncyCastle absent du classpath, ignoré");
+        }
+    }
+
+    private void run(String name, PasswordEncoder encoder, int threads, int iterations) throws Exception {
+        String hash = encoder.encode(PASSWORD);
+        // Préchauffage (JIT) avant la mesure
+        for (int i = 0; i < Math.max(5, iterations / 10); i++) {
+            encoder.matches(PASSWORD, hash);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int share = iterations / threads + (t < iterations % threads ? 1 : 0);
+                futures.add(pool.submit(() -> {
+                    long[] latencies = new long[share];
+                    for (int i = 0; i < share; i++) {
+                        long begin = System.nanoTime();
+                        encoder.matches(PASSWORD, hash);
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return latencies;
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> future : futures) {
+                long[] part = future.get();
+                long[] merged = Arrays.copyOf(all, all.length + part.length);
+                System.arraycopy(part, 0, merged, all.length, part.length);
+                all = merged;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(all);
+            System.out.printf("%-24s %8d %10.1f %10.1f %10.1f%n", name, threads, all.length / seconds,
+                    percentile(all, 0.50), percentile(all, 0.99));
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
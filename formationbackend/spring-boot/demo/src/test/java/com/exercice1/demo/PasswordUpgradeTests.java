@@ -0,0 +1,64 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.security.model.User;
+import com.exercice1.security.repository.UserRepository;
+import com.exercice1.security.security.PasswordEncoders;
+
+@SpringBootTest(classes = DemoApplication.class)
+class PasswordUpgradeTests {
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void loginShouldRehashLegacyOrWeakHashes() {
+        // Hash historique : sans préfixe et avec un coût inférieur à la cible
+        String legacy = new BCryptPasswordEncoder(4).encode("Secret123!");
+        userRepository.save(User.builder()
+                .username("legacy-hash")
+                .email("legacy-hash@example.com")
+                .password(legacy)
+                .roles(new HashSet<>(Set.of("ROLE_USER")))
+                .enabled(true)
+                .build());
+
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("legacy-hash", "Secret123!"));
+
+        String upgraded = userRepository.findByUsername("legacy-hash").orElseThrow().getPassword();
+        assertThat(upgraded).startsWith("{bcrypt}$2a$12$");
+        assertThat(passwordEncoder.upgradeEncoding(upgraded)).isFalse();
+
+        // Login suivant : le hash est déjà à la cible, il n'est pas réécrit
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("legacy-hash", "Secret123!"));
+        assertThat(userRepository.findByUsername("legacy-hash").orElseThrow().getPassword()).isEqualTo(upgraded);
+    }
+
+    @Test
+    void bcryptShouldFlagAnyCostDifferentFromTarget() {
+        PasswordEncoder target = PasswordEncoders.bcrypt(10);
+
+        assertThat(target.upgradeEncoding(new BCryptPasswordEncoder(4).encode("x"))).isTrue();
+        assertThat(target.upgradeEncoding(new BCryptPasswordEncoder(11).encode("x"))).isTrue();
+        assertThat(target.upgradeEncoding(target.encode("x"))).isFalse();
+    }
+}
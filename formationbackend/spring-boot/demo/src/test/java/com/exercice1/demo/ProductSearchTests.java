@@ -0,0 +1,169 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.demo.dto.CategoryStatistics;
+import com.exercice1.demo.dto.PagedResponse;
+import com.exercice1.demo.dto.ProductRequest;
+import com.exercice1.demo.dto.ProductResponse;
+import com.exercice1.demo.dto.ProductStatistics;
+import com.exercice1.demo.service.CategoryStatisticsStore;
+import com.exercice1.demo.service.ProductService;
+
+@SpringBootTest(classes = DemoApplication.class)
+class ProductSearchTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryStatisticsStore categoryStatisticsStore;
+
+    @Test
+    void searchShouldFollowProductWrites() {
+        ProductResponse laptop = productService.createProduct(request("Search Laptop Pro", "Portable 15 pouces"));
+        ProductResponse phone = productService.createProduct(request("Search Phone", "Smartphone avec LAPTOP mode"));
+        productService.createProduct(request("Search Chair", "Chaise de bureau"));
+
+        PagedResponse<ProductResponse> result = productService.searchProducts("laptop", 0, 10, "name", "ASC", null, true);
+        assertThat(result.getContent()).extracting(ProductResponse::getId)
+                .containsExactly(laptop.getId(), phone.getId());
+        assertThat(result.getTotalElements()).isEqualTo(2);
+
+        productService.updateProduct(phone.getId(), request("Search Phone", "Smartphone"));
+        productService.deleteProduct(laptop.getId());
+
+        assertThat(productService.searchProducts("laptop", 0, 10, "name", "ASC", null, true).getContent()).isEmpty();
+        assertThat(productService.searchProducts("ch", 0, 10, "price", "ASC", null, true).getContent())
+                .extracting(ProductResponse::getName)
+                .containsAll(List.of("Search Chair"));
+    }
+
+    @Test
+    void filterShouldOnlyApplyPresentCriteria() {
+        ProductRequest cheap = request("Filter Cheap Book", "Roman");
+        cheap.setCategory("BOOKS");
+        cheap.setPrice(5.0);
+        ProductRequest expensive = request("Filter Rare Book", "Edition originale");
+        expensive.setCategory("BOOKS");
+        expensive.setPrice(500.0);
+        ProductResponse cheapBook = productService.createProduct(cheap);
+        ProductResponse rareBook = productService.createProduct(expensive);
+
+        assertThat(productService.filterProducts("books", null, null, null, null, "filter", 0, 10, "price", "DESC", null, true)
+                .getContent()).extracting(ProductResponse::getId)
+                .containsExactly(rareBook.getId(), cheapBook.getId());
+        assertThat(productService.filterProducts(null, null, 10.0, null, null, "FILTER", 0, 10, "name", "ASC", null, true)
+                .getContent()).extracting(ProductResponse::getId)
+                .containsExactly(cheapBook.getId());
+    }
+
+    @Test
+    void cursorShouldWalkAllPagesWithoutGapsOrDuplicates() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ProductRequest request = request("Cursor Item " + i, "Pagination");
+            request.setPrice(i % 2 == 0 ? 20.0 : 30.0);
+            created.add(productService.createProduct(request).getId());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        do {
+            PagedResponse<ProductResponse> page = productService.filterProducts(null, null, null, null, null,
+                    "cursor item", 0, 2, "price", "DESC", cursor, false);
+            assertThat(page.getTotalElements()).isNull();
+            page.getContent().forEach(product -> seen.add(product.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyInAnyOrderElementsOf(created);
+        assertThat(seen).doesNotHaveDuplicates();
+        assertThat(seen.subList(0, 2)).containsExactlyInAnyOrder(created.get(1), created.get(3));
+    }
+
+    @Test
+    void searchCursorShouldWalkEverySortKeyInIndex() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ProductRequest request = request("Seek Item " + i, "Curseur");
+            request.setPrice(i % 2 == 0 ? 20.0 : 30.0);
+            created.add(productService.createProduct(request).getId());
+        }
+
+        for (String sortBy : List.of("price", "createdAt", "name", "id")) {
+            List<Long> seen = new ArrayList<>();
+            String cursor = "";
+            do {
+                PagedResponse<ProductResponse> page = productService.searchProducts("seek item", 0, 2, sortBy, "DESC",
+                        cursor, false);
+                page.getContent().forEach(product -> seen.add(product.getId()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertThat(seen).as(sortBy).containsExactlyInAnyOrderElementsOf(created).doesNotHaveDuplicates();
+        }
+        assertThat(productService.searchProducts("seek item", 0, 2, "price", "DESC", null, true).getContent())
+                .extracting(ProductResponse::getId)
+                .containsExactly(created.get(3), created.get(1));
+        // Tri non couvert par l'index : requête paginée en base
+        assertThat(productService.searchProducts("seek item", 0, 10, "stock", "ASC", null, true).getTotalElements())
+                .isEqualTo(5);
+    }
+
+    @Test
+    void statisticsShouldFollowProductWrites() {
+        ProductStatistics before = productService.getStatistics();
+
+        ProductRequest request = request("Stats Empty Shelf", "Rupture");
+        request.setCategory("OTHER");
+        request.setStock(0);
+        ProductResponse created = productService.createProduct(request);
+
+        ProductStatistics after = productService.getStatistics();
+        assertThat(after.getTotalProducts()).isEqualTo(before.getTotalProducts() + 1);
+        assertThat(after.getOutOfStockCount()).isEqualTo(before.getOutOfStockCount() + 1);
+        assertThat(after.getLowStockCount()).isEqualTo(before.getLowStockCount() + 1);
+        assertThat(after.getCategoryCounts().get("OTHER"))
+                .isEqualTo(before.getCategoryCounts().getOrDefault("OTHER", 0L) + 1);
+
+        productService.updateStock(created.getId(), 20);
+        assertThat(productService.getStatistics().getOutOfStockCount()).isEqualTo(before.getOutOfStockCount());
+        assertThat(productService.getStatistics().getTotalValue()).isEqualTo(before.getTotalValue() + 200.0);
+    }
+
+    @Test
+    void categoryStatisticsShouldMatchDatabaseAfterWrites() {
+        ProductRequest request = request("Category Stats Jacket", "Veste");
+        request.setCategory("CLOTHING");
+        request.setPrice(40.0);
+        ProductResponse jacket = productService.createProduct(request);
+        productService.updateStock(jacket.getId(), 3);
+        request.setCategory("FOOD");
+        productService.updateProduct(jacket.getId(), request);
+
+        List<CategoryStatistics> incremental = productService.getStatisticsByCategory();
+        categoryStatisticsStore.reconcile();
+        List<CategoryStatistics> reconciled = productService.getStatisticsByCategory();
+
+        assertThat(incremental).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(reconciled);
+    }
+
+    private ProductRequest request(String name, String description) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(description);
+        request.setPrice(10.0);
+        request.setStock(5);
+        request.setCategory("ELECTRONICS");
+        return request;
+    }
+}
@@ -0,0 +1,67 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.demo.dto.ProductRequest;
+import com.exercice1.demo.dto.ProductResponse;
+import com.exercice1.demo.exception.InvalidDataException;
+import com.exercice1.demo.service.ProductService;
+
+@SpringBootTest(classes = DemoApplication.class)
+class ProductStockTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void concurrentStockUpdatesShouldNotLoseWrites() throws Exception {
+        ProductResponse crate = product("Stock Crate", 100);
+
+        // Réassorts massifs (UPDATE atomique) et quelques retraits (verrouillage optimiste + rejeu)
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(pool.submit(() -> productService.updateStock(crate.getId(), 2)));
+        }
+        for (int i = 0; i < 6; i++) {
+            futures.add(pool.submit(() -> productService.updateStock(crate.getId(), -1)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertThat(productService.getProductById(crate.getId()).getStock()).isEqualTo(100 + 40 * 2 - 6);
+    }
+
+    @Test
+    void withdrawalShouldNotGoBelowZero() {
+        ProductResponse box = product("Stock Box", 1);
+
+        assertThatThrownBy(() -> productService.updateStock(box.getId(), -2))
+                .isInstanceOf(InvalidDataException.class);
+        assertThat(productService.updateStock(box.getId(), -1).getStock()).isZero();
+    }
+
+    private ProductResponse product(String name, int stock) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription("Stock");
+        request.setPrice(1.0);
+        request.setStock(stock);
+        request.setCategory("OTHER");
+        return productService.createProduct(request);
+    }
+}
@@ -6,6 +6,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.LocalDateTime;
@@ -120,4 +121,21 @@ class RbacAuthorizationTests {
         mockMvc.perform(get("/api/users"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    @WithMockUser(username = "user", roles = { "USER" })
+    void userCannotReadPasswordHashingStats() throws Exception {
+        mockMvc.perform(get("/api/users/password-hashing/stats"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void adminCanReadPasswordHashingStats() throws Exception {
+        mockMvc.perform(get("/api/users/password-hashing/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queueCapacity").value(64))
+                .andExpect(jsonPath("$.queued").value(0))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
 }
@@ -0,0 +1,77 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.exercice1.DemoApplication;
+import com.exercice1.security.exception.InvalidDataException;
+import com.exercice1.security.model.RefreshToken;
+import com.exercice1.security.model.User;
+import com.exercice1.security.repository.RefreshTokenRepository;
+import com.exercice1.security.repository.UserRepository;
+import com.exercice1.security.service.RefreshTokenService;
+
+@SpringBootTest(classes = DemoApplication.class)
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void rotationShouldRevokeFamilyWhenConsumedTokenIsReused() {
+        User user = user("rotation");
+        RefreshToken first = refreshTokenService.createRefreshToken(user, false);
+        assertThat(first.getTokenHash()).hasSize(64).isNotEqualTo(first.getToken());
+
+        RefreshToken second = refreshTokenService.rotateRefreshToken(first.getToken());
+        assertThat(second.getToken()).isNotEqualTo(first.getToken());
+        assertThat(second.getFamilyId()).isEqualTo(first.getFamilyId());
+        assertThat(second.getExpiryDate().truncatedTo(ChronoUnit.MILLIS))
+                .isEqualTo(first.getExpiryDate().truncatedTo(ChronoUnit.MILLIS));
+
+        // Rejeu du premier token : vol présumé, toute la famille tombe
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken(first.getToken()))
+                .isInstanceOf(InvalidDataException.class);
+        assertThatThrownBy(() -> refreshTokenService.verifyRefreshToken(second.getToken()))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    void purgeShouldRemoveRevokedFamiliesButKeepLiveChains() {
+        RefreshToken revoked = refreshTokenService.createRefreshToken(user("purge-revoked"), false);
+        refreshTokenService.revokeRefreshToken(revoked.getToken());
+        RefreshToken live = refreshTokenService.createRefreshToken(user("purge-live"), false);
+        RefreshToken rotated = refreshTokenService.rotateRefreshToken(live.getToken());
+
+        assertThat(refreshTokenService.purgeTokens()).isPositive();
+
+        assertThat(refreshTokenRepository.findById(revoked.getId())).isEmpty();
+        // Le token consommé reste tant que sa famille est active (détection de réutilisation)
+        assertThat(refreshTokenRepository.findById(live.getId())).isPresent();
+        assertThat(refreshTokenService.verifyRefreshToken(rotated.getToken()).getId()).isEqualTo(rotated.getId());
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("encoded")
+                .roles(new HashSet<>(Set.of("ROLE_USER")))
+                .enabled(true)
+                .build());
+    }
+}
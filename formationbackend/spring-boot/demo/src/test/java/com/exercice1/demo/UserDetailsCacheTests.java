@@ -0,0 +1,65 @@
+package com.exercice1.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.exercice1.security.service.UserDetailsCache;
+
+class UserDetailsCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, UserDetails> loader = username -> {
+        loads.incrementAndGet();
+        return new User(username, "hash-" + username, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    };
+
+    @Test
+    void shouldServeCopiesFromCacheUntilEvicted() {
+        UserDetailsCache cache = new UserDetailsCache(10, 60_000);
+
+        UserDetails first = cache.get("alice", loader);
+        // Spring Security efface le mot de passe du principal après le login
+        ((CredentialsContainer) first).eraseCredentials();
+        UserDetails second = cache.get("alice", loader);
+
+        assertThat(second.getPassword()).isEqualTo("hash-alice");
+        assertThat(second.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        assertThat(loads).hasValue(1);
+
+        cache.evict("alice");
+        cache.get("alice", loader);
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats()).isEqualTo(new UserDetailsCache.Stats(1, 2, 0, 1));
+    }
+
+    @Test
+    void shouldBoundSizeAndExpireEntries() {
+        UserDetailsCache bounded = new UserDetailsCache(2, 60_000);
+        bounded.get("a", loader);
+        bounded.get("b", loader);
+        bounded.get("a", loader);
+        bounded.get("c", loader);
+
+        // "b" est le moins récemment utilisé
+        assertThat(bounded.stats().size()).isEqualTo(2);
+        assertThat(bounded.stats().evictions()).isEqualTo(1);
+        bounded.get("a", loader);
+        assertThat(loads).hasValue(3);
+
+        UserDetailsCache expiring = new UserDetailsCache(10, 0);
+        expiring.get("d", loader);
+        expiring.get("d", loader);
+        assertThat(loads).hasValue(5);
+        assertThat(expiring.stats().evictions()).isEqualTo(1);
+    }
+}